@@ -0,0 +1,41 @@
+package org.cis1200.bench;
+
+/**
+ * FEN corpus shared by the benchmarks, grouped by game phase so results can be
+ * compared across opening, middlegame and endgame positions.
+ */
+final class BenchmarkPositions {
+    private static final String[] OPENING = {
+        "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+        "r1bqkbnr/pppppppp/2n5/4P3/8/8/PPPP1PPP/RNBQKBNR b KQkq - 0 3",
+        "rnbqkbnr/ppp2ppp/8/3pp3/2P5/8/PP1PPPPP/RNBQKBNR w KQkq - 0 4"
+    };
+
+    private static final String[] MIDDLEGAME = {
+        "r1bqk2r/pppp1ppp/2n2n2/2b1p3/2B1P3/3P1N2/PPP2PPP/RNBQK2R w KQkq - 0 1",
+        "r1bqkb1r/pppppppp/2n5/8/4P3/5N2/PPPP1PPP/RNBQKB1R b KQkq - 3 4",
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"
+    };
+
+    private static final String[] ENDGAME = {
+        "8/8/8/8/8/8/5K2/4k3 w - - 0 1",
+        "8/4P3/8/8/8/8/8/4k2K w - - 0 1",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"
+    };
+
+    private BenchmarkPositions() {
+    }
+
+    /**
+     * @param phase one of "opening", "middlegame" or "endgame"
+     * @return the FENs for that phase
+     */
+    static String[] forPhase(String phase) {
+        return switch (phase) {
+            case "opening" -> OPENING;
+            case "middlegame" -> MIDDLEGAME;
+            case "endgame" -> ENDGAME;
+            default -> throw new IllegalArgumentException("Unknown phase: " + phase);
+        };
+    }
+}
@@ -0,0 +1,129 @@
+package org.cis1200.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.cis1200.Board;
+import org.cis1200.bitboard.Move;
+import org.cis1200.bitboard.MoveList;
+import org.cis1200.bitboard.Position;
+import org.cis1200.util.Piece;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Throughput of the Board entry points used by the UI and by analysis code.
+ * Each operation runs over every position of one phase of the corpus.
+ *
+ * Build and run with allocation profiling:
+ *
+ * <pre>
+ * mvn -P jmh package
+ * java -jar target/benchmarks.jar BoardBenchmark -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardBenchmark {
+    @Param({ "opening", "middlegame", "endgame" })
+    public String phase;
+
+    private String[] fens;
+    private Board[] boards;
+
+    // One legal move per board for the movePiece benchmark
+    private Piece[] movers;
+    private int[][] targets;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fens = BenchmarkPositions.forPhase(phase);
+        boards = new Board[fens.length];
+        movers = new Piece[fens.length];
+        targets = new int[fens.length][];
+
+        MoveList moves = new MoveList();
+        for (int i = 0; i < fens.length; i++) {
+            boards[i] = Board.FENtoBoard(fens[i]);
+
+            moves.clear();
+            boards[i].getPosition().generateLegalMoves(moves);
+            int move = moves.get(0);
+            movers[i] = boards[i].getPiece(coordinates(Move.from(move)));
+            targets[i] = coordinates(Move.to(move));
+        }
+    }
+
+    private static int[] coordinates(int square) {
+        return new int[] { Position.fileOf(square), Position.rankOf(square) };
+    }
+
+    @Benchmark
+    public void fenToBoard(Blackhole bh) {
+        for (String fen : fens) {
+            bh.consume(Board.FENtoBoard(fen));
+        }
+    }
+
+    @Benchmark
+    public void boardToFen(Blackhole bh) {
+        for (Board board : boards) {
+            bh.consume(board.boardToFEN());
+        }
+    }
+
+    @Benchmark
+    public void copy(Blackhole bh) {
+        for (Board board : boards) {
+            bh.consume(board.copy());
+        }
+    }
+
+    @Benchmark
+    public void isInCheck(Blackhole bh) {
+        for (Board board : boards) {
+            bh.consume(board.isInCheck(board.getToMove()));
+        }
+    }
+
+    @Benchmark
+    public void getLegalMoves(Blackhole bh) {
+        for (Board board : boards) {
+            bh.consume(board.getLegalMoves(board.getToMove()));
+        }
+    }
+
+    /**
+     * Validated move including what movePiece records: the packed history
+     * entry and, for a checking move, the mate check. Taken back afterwards
+     * so every invocation starts from the same position.
+     */
+    @Benchmark
+    public void movePiece() {
+        for (int i = 0; i < boards.length; i++) {
+            boards[i].movePiece(movers[i], targets[i]);
+            boards[i].unmakeMove();
+        }
+    }
+
+    @Benchmark
+    public void isGameOver(Blackhole bh) {
+        for (Board board : boards) {
+            bh.consume(board.isGameOver());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package org.cis1200.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.cis1200.Board;
+import org.cis1200.util.Piece;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Throughput of Piece.getLegalMoves for each piece type. Each operation asks
+ * every piece of that type belonging to the side to move, over every position
+ * of one phase of the corpus.
+ *
+ * <pre>
+ * mvn -P jmh package
+ * java -jar target/benchmarks.jar PieceBenchmark -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PieceBenchmark {
+    @Param({ "opening", "middlegame", "endgame" })
+    public String phase;
+
+    // Pieces of the side to move, indexed by Piece.Type ordinal
+    private Piece[][] piecesByType;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<List<Piece>> lists = new ArrayList<>();
+        for (int i = 0; i < Piece.Type.values().length; i++) {
+            lists.add(new ArrayList<>());
+        }
+        for (String fen : BenchmarkPositions.forPhase(phase)) {
+            Board board = Board.FENtoBoard(fen);
+            for (int file = 0; file < 8; file++) {
+                for (int rank = 0; rank < 8; rank++) {
+                    Piece piece = board.getPiece(new int[] { file, rank });
+                    if (piece != null && piece.getColor() == board.getToMove()) {
+                        lists.get(piece.getType().ordinal()).add(piece);
+                    }
+                }
+            }
+        }
+        piecesByType = new Piece[lists.size()][];
+        for (int i = 0; i < lists.size(); i++) {
+            piecesByType[i] = lists.get(i).toArray(new Piece[0]);
+        }
+    }
+
+    private void legalMoves(Piece.Type type, Blackhole bh) {
+        for (Piece piece : piecesByType[type.ordinal()]) {
+            bh.consume(piece.getLegalMoves());
+        }
+    }
+
+    @Benchmark
+    public void pawn(Blackhole bh) {
+        legalMoves(Piece.Type.PAWN, bh);
+    }
+
+    @Benchmark
+    public void knight(Blackhole bh) {
+        legalMoves(Piece.Type.KNIGHT, bh);
+    }
+
+    @Benchmark
+    public void bishop(Blackhole bh) {
+        legalMoves(Piece.Type.BISHOP, bh);
+    }
+
+    @Benchmark
+    public void rook(Blackhole bh) {
+        legalMoves(Piece.Type.ROOK, bh);
+    }
+
+    @Benchmark
+    public void queen(Blackhole bh) {
+        legalMoves(Piece.Type.QUEEN, bh);
+    }
+
+    @Benchmark
+    public void king(Blackhole bh) {
+        legalMoves(Piece.Type.KING, bh);
+    }
+}
@@ -1,11 +1,18 @@
 package org.cis1200;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.cis1200.bitboard.Move;
+import org.cis1200.bitboard.MoveList;
+import org.cis1200.bitboard.Notation;
+import org.cis1200.bitboard.Position;
+import org.cis1200.bitboard.PositionSnapshot;
+import org.cis1200.engine.StaticExchange;
 import org.cis1200.pieces.Bishop;
 import org.cis1200.pieces.King;
 import org.cis1200.pieces.Knight;
@@ -19,48 +26,49 @@ public class Board {
 
     private static final String STARTING_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
 
-    private Piece.Color toMove;
-
-    private int halfMoveClock;
-
-    private int fullMoveNumber;
-
-    // Castling rights
-    private boolean blackKingsideCastle;
-    private boolean blackQueensideCastle;
-    private boolean whiteKingsideCastle;
-    private boolean whiteQueensideCastle;
+    // Bitboard core holding the rules-relevant state (pieces, side to move,
+    // castling rights, en passant square and clocks)
+    private final Position position;
 
     // Lists of pieces
     private final List<Piece> whitePieces;
     private final List<Piece> blackPieces;
+    // The pieces of the position loadFEN replaces, to put back on the new one
+    private final List<Piece> sparePieces = new ArrayList<>();
 
-    // En passant target coord
-    private int[] enPassantTarget;
+    // Reused buffer for generating packed moves
+    private final MoveList moveBuffer = new MoveList();
 
-    // Lists of moves for display purposes
-    private final List<String> moveHistory;
+    // Pieces touched by each move made with makeMove, reused between moves
+    private UndoEntry[] undoStack = new UndoEntry[0];
+    private int undoCount;
 
-    // Lists of positions for tracking repetition
-    private final List<String> positionHistory;
+    // Moves recorded by movePiece, packed (see recordMove) so that playing a
+    // move doesn't build a string; the notation is written when asked for
+    private long[] history = new long[16];
+    private String[] historyText = new String[16];
+    private int historyCount;
+
+    // Status of the current position, or null until asked for; dropped by
+    // every change to the board and checked against the position's key in
+    // case the position was changed directly
+    private GameStatus status;
+    private long statusKey;
+
+    // Immutable copy of the position for other threads, replaced after every
+    // change to the board
+    private volatile PositionSnapshot snapshot;
 
     /**
      * Creates a new empty board.
      */
     public Board() {
         this.board = new Piece[8][8];
-        this.toMove = Piece.Color.WHITE;
-        this.halfMoveClock = 0;
-        this.fullMoveNumber = 1;
-        this.whiteKingsideCastle = true;
-        this.whiteQueensideCastle = true;
-        this.blackKingsideCastle = true;
-        this.blackQueensideCastle = true;
-        this.enPassantTarget = null;
+        this.position = new Position();
+        this.position.setCastlingRights(Position.ALL_CASTLING);
         this.whitePieces = new ArrayList<>();
         this.blackPieces = new ArrayList<>();
-        this.moveHistory = new ArrayList<>();
-        this.positionHistory = new ArrayList<>();
+        this.snapshot = position.snapshot();
     }
 
     /**
@@ -72,20 +80,24 @@ public class Board {
             int[] enPassantTarget
     ) {
         this.board = new Piece[8][8];
-        this.toMove = toMove;
-        this.halfMoveClock = halfMoveClock;
-        this.fullMoveNumber = fullMoveNumber;
-        this.blackKingsideCastle = blackKingsideCastle;
-        this.blackQueensideCastle = blackQueensideCastle;
-        this.whiteKingsideCastle = whiteKingsideCastle;
-        this.whiteQueensideCastle = whiteQueensideCastle;
-        this.enPassantTarget = enPassantTarget;
+        this.position = new Position();
+        this.position.setSideToMove(colorIndex(toMove));
+        this.position.setHalfMoveClock(halfMoveClock);
+        this.position.setFullMoveNumber(fullMoveNumber);
+        this.position.setCastlingRights(
+                (whiteKingsideCastle ? Position.WHITE_KINGSIDE : 0)
+                        | (whiteQueensideCastle ? Position.WHITE_QUEENSIDE : 0)
+                        | (blackKingsideCastle ? Position.BLACK_KINGSIDE : 0)
+                        | (blackQueensideCastle ? Position.BLACK_QUEENSIDE : 0)
+        );
+        this.position.setEnPassantSquare(
+                enPassantTarget == null ? Position.NO_SQUARE : toSquare(enPassantTarget)
+        );
 
         // Initialize piece arrays
         this.whitePieces = new ArrayList<>();
         this.blackPieces = new ArrayList<>();
-        this.moveHistory = new ArrayList<>();
-        this.positionHistory = new ArrayList<>();
+        this.snapshot = position.snapshot();
     }
 
     /**
@@ -95,7 +107,24 @@ public class Board {
      * @param position The position to add the piece to.
      */
     public void addPiece(Piece piece, int[] position) {
-        this.board[position[0]][position[1]] = piece;
+        placePiece(piece, position);
+        publishSnapshot();
+    }
+
+    /**
+     * Adds a piece without publishing a snapshot, for building a whole
+     * position at once.
+     */
+    private void placePiece(Piece piece, int[] position) {
+        placePiece(piece, toSquare(position));
+    }
+
+    private void placePiece(Piece piece, int square) {
+        this.status = null;
+        this.board[Position.fileOf(square)][Position.rankOf(square)] = piece;
+        this.position.putPiece(
+                square, colorIndex(piece.getColor()), piece.getType().ordinal()
+        );
         if (piece.getColor() == Piece.Color.WHITE) {
             this.whitePieces.add(piece);
         } else {
@@ -109,7 +138,10 @@ public class Board {
      * @param position The position to remove the piece from.
      */
     public void removePiece(int[] position) {
+        this.status = null;
         this.board[position[0]][position[1]] = null;
+        this.position.removePiece(toSquare(position));
+        publishSnapshot();
     }
 
     /**
@@ -119,9 +151,19 @@ public class Board {
      * @return The piece at the given position.
      */
     public Piece getPiece(int[] position) {
+        if (this.position.getPieceAt(toSquare(position)) == Position.NO_PIECE) {
+            return null;
+        }
         return this.board[position[0]][position[1]];
     }
 
+    /**
+     * @return the bitboard position backing this board
+     */
+    public Position getPosition() {
+        return position;
+    }
+
     /**
      * Moves a piece to a new position without validation.
      * Used internally for move validation and checking for check.
@@ -129,27 +171,31 @@ public class Board {
      * @return a copy of the board with the move made
      */
     public Board tryMove(int[] oldPos, int[] newPos) {
+        status = null;
         Piece piece = this.board[oldPos[0]][oldPos[1]];
         board[oldPos[0]][oldPos[1]] = null;
         board[newPos[0]][newPos[1]] = piece;
         piece.setPosition(newPos);
+        position.relocatePiece(toSquare(oldPos), toSquare(newPos));
+        publishSnapshot();
         return this;
     }
 
     /**
      * Given a piece and a list of moves, returns a list of moves that don't leave
-     * the king in check.
+     * the king in check. The moves are matched against the legal moves of the
+     * piece's board, so only the side to move keeps any.
      * 
      * @param piece the piece to check
      * @param moves the list of moves to check
      * @return a list of valid moves
      */
     public static List<int[]> filterChecklessMoves(Piece piece, List<int[]> moves) {
+        long legal = piece.getBoard().position.getLegalTargets(toSquare(piece.getPosition()));
         List<int[]> validMoves = new ArrayList<>();
         for (int[] move : moves) {
-            Board copyBoard = piece.getBoard().copy();
-            copyBoard.tryMove(piece.getPosition(), move);
-            if (!copyBoard.isInCheck(piece.getColor())) {
+            if (move[0] >= 0 && move[0] < 8 && move[1] >= 0 && move[1] < 8
+                    && (legal & (1L << toSquare(move))) != 0) {
                 validMoves.add(Arrays.copyOf(move, 2));
             }
         }
@@ -168,90 +214,226 @@ public class Board {
             throw new IllegalArgumentException("Invalid move");
         }
 
-        int[] oldPos = piece.getPosition();
+        int from = toSquare(piece.getPosition());
+        int to = toSquare(newPos);
+        int type = Position.typeOf(position.getPieceAt(from));
+        int flags = 0;
+        if (position.getPieceAt(to) != Position.NO_PIECE) {
+            flags |= Move.CAPTURE;
+        } else if (type == Position.PAWN && to == position.getEnPassantSquare()) {
+            flags |= Move.CAPTURE | Move.EN_PASSANT;
+        }
+        if (type == Position.KING && Math.abs(to - from) == 2) {
+            flags |= Move.CASTLING;
+        }
+        // a pawn reaching the last rank this way becomes a queen
+        boolean promotes = type == Position.PAWN
+                && (Position.rankOf(to) == 7 || Position.rankOf(to) == 0);
+        playRecorded(Move.of(from, to, promotes ? Position.QUEEN : 0, flags));
+    }
+
+    /**
+     * Moves a piece given the move in standard algebraic notation (e.g. "Nbd7",
+     * "exd6", "e8=N", "O-O") or long algebraic notation (e.g. "g1f3",
+     * "e7e8n"), recording it in the move history.
+     * 
+     * @param notation the move
+     * @throws IllegalArgumentException if the text doesn't name exactly one
+     *                                  legal move
+     */
+    public void movePiece(String notation) {
+        int move = Notation.parse(position, notation, moveBuffer);
+        if (move == Move.NONE) {
+            throw new IllegalArgumentException("Invalid move: " + notation);
+        }
+        playRecorded(move);
+    }
+
+    /**
+     * Plays a legal move and records it in the move history.
+     */
+    private void playRecorded(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int type = Position.typeOf(position.getPieceAt(from));
+
+        // Work out the notation's extras before anything moves
+        int disambiguation = Notation.disambiguation(position, move, moveBuffer);
+        boolean isCheck = position.givesCheck(move);
+
+        makeMove(
+                toCoordinates(from), toCoordinates(to),
+                Move.isPromotion(move) ? Move.promotion(move) : Position.QUEEN
+        );
+
+        // Only a checking move can mate, and one legal reply rules it out
+        boolean isCheckmate = isCheck && !position.hasLegalMoves();
+        recordMove(type, move, disambiguation, isCheck, isCheckmate);
+    }
+
+    /**
+     * Plays a move without validation so that it can be taken back with
+     * {@link #unmakeMove()}. Castling, en passant and promotion (always to a
+     * queen) are handled. If the move is later recorded by movePiece, taking it
+     * back also removes it from the move history.
+     * 
+     * @param oldPos the position of the piece to move
+     * @param newPos the position to move it to
+     */
+    public void makeMove(int[] oldPos, int[] newPos) {
+        makeMove(oldPos, newPos, Position.QUEEN);
+    }
+
+    /**
+     * Plays a move without validation, promoting a pawn that reaches the last
+     * rank to the given piece type.
+     */
+    private void makeMove(int[] oldPos, int[] newPos, int promotion) {
+        status = null;
+        Piece piece = board[oldPos[0]][oldPos[1]];
+        boolean isEnPassant = piece.getType() == Piece.Type.PAWN
+                && toSquare(newPos) == position.getEnPassantSquare();
+        int[] capturedPos = isEnPassant ? new int[] { newPos[0], oldPos[1] } : newPos;
+
+        UndoEntry entry = pushUndoEntry();
+        entry.moved = piece;
+        entry.captured = board[capturedPos[0]][capturedPos[1]];
+        entry.promoted = null;
+        entry.fromFile = oldPos[0];
+        entry.fromRank = oldPos[1];
+        entry.historySize = historyCount;
+
+        // Play the move on the bitboards; the Piece objects below only mirror it
+        position.makeMove(toSquare(oldPos), toSquare(newPos), promotion);
 
         // Handle castling
-        if (piece.getType() == Piece.Type.KING && Math.abs(newPos[1] - oldPos[1]) == 2) {
+        if (piece.getType() == Piece.Type.KING && Math.abs(newPos[0] - oldPos[0]) == 2) {
+            int rank = oldPos[1];
             // Kingside castle
-            if (newPos[1] > oldPos[1]) {
-                int rank = oldPos[0];
-                Piece rook = getPiece(new int[] { rank, 7 });
-                board[rank][7] = null;
-                board[rank][5] = rook;
-                rook.setPosition(new int[] { rank, 5 });
+            if (newPos[0] > oldPos[0]) {
+                shiftPiece(new int[] { 7, rank }, new int[] { 5, rank });
             }
             // Queenside castle
             else {
-                int rank = oldPos[0];
-                Piece rook = getPiece(new int[] { rank, 0 });
-                board[rank][0] = null;
-                board[rank][3] = rook;
-                rook.setPosition(new int[] { rank, 3 });
+                shiftPiece(new int[] { 0, rank }, new int[] { 3, rank });
             }
         }
 
-        // Handle en passant capture
-        if (piece.getType() == Piece.Type.PAWN &&
-                newPos[1] != oldPos[1] && // diagonal move
-                getPiece(newPos) == null) { // no piece at target square
-            // Remove captured pawn
-            int capturedPawnRank = oldPos[0];
-            Piece capturedPawn = getPiece(new int[] { capturedPawnRank, newPos[1] });
-            if (capturedPawn != null) {
-                board[capturedPawnRank][newPos[1]] = null;
-                capturedPawn.setActive(false);
-                if (capturedPawn.getColor() == Piece.Color.WHITE) {
-                    whitePieces.remove(capturedPawn);
-                } else {
-                    blackPieces.remove(capturedPawn);
-                }
-            }
+        // Handle captures (en passant captures the pawn beside the moving pawn)
+        if (entry.captured != null) {
+            entry.captured.setActive(false);
+            board[capturedPos[0]][capturedPos[1]] = null;
         }
 
-        // Handle regular capture
-        Piece capturedPiece = getPiece(newPos);
-        if (capturedPiece != null) {
-            capturedPiece.setActive(false);
-            if (capturedPiece.getColor() == Piece.Color.WHITE) {
-                whitePieces.remove(capturedPiece);
+        // Move piece
+        shiftPiece(oldPos, newPos);
+
+        // Handle pawn promotion
+        if (piece.getType() == Piece.Type.PAWN && (newPos[1] == 7 || newPos[1] == 0)) {
+            // Replace the pawn with a new piece
+            Piece promoted = switch (promotion) {
+                case Position.KNIGHT -> new Knight(piece.getColor(), newPos, this);
+                case Position.BISHOP -> new Bishop(piece.getColor(), newPos, this);
+                case Position.ROOK -> new Rook(piece.getColor(), newPos, this);
+                default -> new Queen(piece.getColor(), newPos, this);
+            };
+            piece.setActive(false);
+            (piece.getColor() == Piece.Color.WHITE ? whitePieces : blackPieces).add(promoted);
+            board[newPos[0]][newPos[1]] = promoted;
+            entry.promoted = promoted;
+        }
+        publishSnapshot();
+    }
+
+    /**
+     * Takes back the last move made with makeMove or movePiece.
+     * 
+     * @throws IllegalStateException if there is no move to take back
+     */
+    public void unmakeMove() {
+        if (undoCount == 0) {
+            throw new IllegalStateException("No move to unmake");
+        }
+        status = null;
+        UndoEntry entry = undoStack[--undoCount];
+        Piece piece = entry.moved;
+        int[] newPos = entry.promoted != null ? entry.promoted.getPosition()
+                : piece.getPosition();
+
+        int[] oldPos = new int[] { entry.fromFile, entry.fromRank };
+
+        position.unmakeMove();
+
+        // Undo promotion
+        if (entry.promoted != null) {
+            (piece.getColor() == Piece.Color.WHITE ? whitePieces : blackPieces)
+                    .remove(entry.promoted);
+            board[newPos[0]][newPos[1]] = piece;
+            piece.setActive(true);
+        }
+
+        // Move piece back
+        shiftPiece(newPos, oldPos);
+
+        // Undo castling
+        if (piece.getType() == Piece.Type.KING && Math.abs(newPos[0] - oldPos[0]) == 2) {
+            int rank = oldPos[1];
+            if (newPos[0] > oldPos[0]) {
+                shiftPiece(new int[] { 5, rank }, new int[] { 7, rank });
             } else {
-                blackPieces.remove(capturedPiece);
+                shiftPiece(new int[] { 3, rank }, new int[] { 0, rank });
             }
         }
 
-        // Move piece
+        // Restore captured piece
+        if (entry.captured != null) {
+            int[] capturedPos = entry.captured.getPosition();
+            board[capturedPos[0]][capturedPos[1]] = entry.captured;
+            entry.captured.setActive(true);
+        }
+
+        // Drop anything recorded for this move
+        while (historyCount > entry.historySize) {
+            historyText[--historyCount] = null;
+        }
+
+        entry.moved = null;
+        entry.captured = null;
+        entry.promoted = null;
+        publishSnapshot();
+    }
+
+    /**
+     * Moves a Piece object on the grid without touching the bitboards.
+     */
+    private void shiftPiece(int[] oldPos, int[] newPos) {
+        Piece piece = board[oldPos[0]][oldPos[1]];
         board[oldPos[0]][oldPos[1]] = null;
         board[newPos[0]][newPos[1]] = piece;
         piece.setPosition(newPos);
+    }
 
-        // Handle pawn promotion
-        if (piece.getType() == Piece.Type.PAWN) {
-            // White pawn reaches 8th rank or black pawn reaches 1st rank
-            if ((piece.getColor() == Piece.Color.WHITE && newPos[1] == 7) ||
-                (piece.getColor() == Piece.Color.BLACK && newPos[1] == 0)) {
-                
-                // Create new queen
-                Queen queen = new Queen(piece.getColor(), newPos, this);
-                
-                // Deactivate pawn first
-                piece.setActive(false);
-                
-                // Remove pawn from piece list and add queen
-                if (piece.getColor() == Piece.Color.WHITE) {
-                    whitePieces.remove(piece);
-                    whitePieces.add(queen);
-                } else {
-                    blackPieces.remove(piece);
-                    blackPieces.add(queen);
-                }
-                
-                // Replace pawn with queen on board
-                board[newPos[0]][newPos[1]] = queen;
-            }
+    private UndoEntry pushUndoEntry() {
+        if (undoCount == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, Math.max(16, undoStack.length * 2));
+        }
+        if (undoStack[undoCount] == null) {
+            undoStack[undoCount] = new UndoEntry();
         }
+        return undoStack[undoCount++];
+    }
 
-        // Update game state (castling rights, en passant target, move counters, etc.)
-        updateGameState(piece, oldPos, newPos);
+    /**
+     * The Piece objects touched by a move, so they can be put back on unmake.
+     * The rest of the state is restored by the position's own undo stack.
+     */
+    private static class UndoEntry {
+        private Piece moved;
+        private Piece captured;
+        private Piece promoted;
+        private int fromFile;
+        private int fromRank;
+        private int historySize;
     }
 
     /**
@@ -262,13 +444,11 @@ public class Board {
      * @return true if the move is valid
      */
     public boolean isValidMove(Piece piece, int[] newPos) {
-        List<int[]> validMoves = piece.getLegalMoves();
-        for (int[] move : validMoves) {
-            if (move[0] == newPos[0] && move[1] == newPos[1]) {
-                return true;
-            }
+        if (!isOnBoard(piece)) {
+            return false;
         }
-        return false;
+        long targets = position.getLegalTargets(toSquare(piece.getPosition()));
+        return (targets & (1L << toSquare(newPos))) != 0;
     }
 
     /**
@@ -278,484 +458,200 @@ public class Board {
      *         white kingside, white queenside, black kingside, black queenside
      */
     public boolean[] getCastlingRights() {
-        return new boolean[] { whiteKingsideCastle, whiteQueensideCastle, blackKingsideCastle,
-            blackQueensideCastle };
+        int rights = position.getCastlingRights();
+        return new boolean[] { (rights & Position.WHITE_KINGSIDE) != 0,
+            (rights & Position.WHITE_QUEENSIDE) != 0, (rights & Position.BLACK_KINGSIDE) != 0,
+            (rights & Position.BLACK_QUEENSIDE) != 0 };
     }
 
     public void setWhiteKingsideCastle(boolean whiteKingsideCastle) {
-        this.whiteKingsideCastle = whiteKingsideCastle;
+        setCastlingRight(Position.WHITE_KINGSIDE, whiteKingsideCastle);
     }
 
     public void setWhiteQueensideCastle(boolean whiteQueensideCastle) {
-        this.whiteQueensideCastle = whiteQueensideCastle;
+        setCastlingRight(Position.WHITE_QUEENSIDE, whiteQueensideCastle);
     }
 
     public void setBlackKingsideCastle(boolean blackKingsideCastle) {
-        this.blackKingsideCastle = blackKingsideCastle;
+        setCastlingRight(Position.BLACK_KINGSIDE, blackKingsideCastle);
     }
 
     public void setBlackQueensideCastle(boolean blackQueensideCastle) {
-        this.blackQueensideCastle = blackQueensideCastle;
+        setCastlingRight(Position.BLACK_QUEENSIDE, blackQueensideCastle);
     }
 
-    /*----------------------------------
-    --- FEN related stuff ---------------  
-    ----------------------------------*/
+    private void setCastlingRight(int right, boolean allowed) {
+        status = null;
+        int rights = position.getCastlingRights();
+        position.setCastlingRights(allowed ? rights | right : rights & ~right);
+        publishSnapshot();
+    }
 
     /**
-     * Checks if a given FEN string is valid.
+     * Gets an immutable copy of the current position, which any thread may
+     * read, or turn into a {@link Position} to search from, without locking.
+     * A new one is published after every move and every other change to the
+     * board, so a reader keeps seeing a consistent position while the game
+     * goes on.
      * 
-     * @param fen The FEN string to check.
-     * @return True if the FEN string is valid, false otherwise.
+     * @return the latest snapshot, never null
      */
-    public static boolean isValidFEN(String fen) {
-        // check that the FEN has 7 "/" characters and 5 " " characters (this is to
-        // check that the FEN is formatted correctly)
-        if (!fen.replaceAll("[^/ ]", "").equals("///////     ")) {
-            System.out.println("FEN has incorrect number of \"/\" and \" \" characters");
-            return false;
-        }
-
-        // Split the FEN string into its components
-        String[] parts = fen.split("[ ]");
-        if (parts.length != 6) {
-            System.out.println(
-                    "FEN has incorrect number of components/is not complete (" + parts.length
-                            + " instead of 6)"
-            );
-            return false;
-        }
-
-        // SECTION 1: Check that each row has 8 pieces, and that the pieces are valid
-
-        // check that the kings exist
-        if (!parts[0].matches("^[^k]*k[^k]*$") || !parts[0].matches("^[^K]*K[^K]*$")) {
-            System.out.println("FEN is has too many/few kings (should be 1 of each color)");
-            return false;
-        }
-
-        // check that each row has 8 pieces and that the pieces are valid
-        String[] rows = parts[0].split("/");
-        for (int i = 0; i < 8; i++) {
-            String currentRow = rows[i];
-            int count = 0;
-            for (char c : currentRow.toCharArray()) {
-                if (Character.isDigit(c)) {
-                    count += Character.getNumericValue(c);
-                } else {
-                    if (!"pnbrqk".contains(String.valueOf(c).toLowerCase())) {
-                        System.out.println("FEN has invalid piece");
-                        return false;
-                    }
-                    count++;
-                }
-            }
-            if (count != 8) {
-                System.out.println(
-                        "FEN has incorrect number of pieces in a row (row " + i + " has " + count
-                                + " instead of 8)"
-                );
-                return false;
-            }
-        }
-
-        // SECTION 2: Check that the color to move is valid
-        String colorStatement = parts[1];
-
-        if (!colorStatement.equals("w") && !colorStatement.equals("b")) {
-            System.out.println("FEN has invalid color to move (" + colorStatement + ")");
-            return false;
-        }
-
-        // SECTION 3: Check that the castling availability is valid
-        String castleStatement = parts[2];
-
-        // general character check
-        if (!castleStatement.equals("-") &&
-                !castleStatement.equals("K") &&
-                !castleStatement.equals("Q") &&
-                !castleStatement.equals("k") &&
-                !castleStatement.equals("q") &&
-                !castleStatement.equals("KQ") &&
-                !castleStatement.equals("Kk") &&
-                !castleStatement.equals("Qk") &&
-                !castleStatement.equals("Kq") &&
-                !castleStatement.equals("kq") &&
-                !castleStatement.equals("Qq") &&
-                !castleStatement.equals("KQk") &&
-                !castleStatement.equals("KQq") &&
-                !castleStatement.equals("Kkq") &&
-                !castleStatement.equals("Qkq") &&
-                !castleStatement.equals("KQkq")) {
-            System.out.println("FEN has invalid castling availability (" + castleStatement + ")");
-            return false;
-        }
-
-        // individual character checks
-
-        // check that BLACK's QUEEN side castle is valid
-        if (castleStatement.contains("q")) {
-            String homeBaseString = rows[0];
-
-            // check that the king and rook exist
-            if (!homeBaseString.contains("k") || !homeBaseString.contains("r")) {
-                System.out.println(
-                        "FEN has a castling contradiction for black queen side castle (missing king or rook on back rank)"
-                );
-                return false;
-            }
-
-            // isolate relevant characters
-            char[] homeBase = homeBaseString.split("k")[0].toCharArray();
-
-            // check that the rook is in the correct position
-            if (homeBase[0] != 'r') {
-                System.out.println(
-                        "FEN has a castling contradiction for black queen side castle (rook is not in the correct position)"
-                );
-                return false;
-            }
-            int homeBaseSize = 0;
-            for (char c : homeBase) {
-                if (Character.isDigit(c)) {
-                    homeBaseSize += Character.getNumericValue(c);
-                } else {
-                    homeBaseSize++;
-                }
-            }
-            // check that the king is in the correct position
-            if (homeBaseSize != 4) {
-                System.out.println(
-                        "FEN has a castling contradiction for black queen side castle (king is not in the correct position)"
-                );
-                return false;
-            }
-        }
-
-        // check that BLACK's KING side castle is valid
-        if (castleStatement.contains("k")) {
-            String homeBaseString = rows[0];
-
-            // check that the king and rook exist
-            if (!homeBaseString.contains("k") || !homeBaseString.contains("r")) {
-                System.out.println(
-                        "FEN has a castling contradiction for black king side castle (missing king or rook on back rank)"
-                );
-                return false;
-            }
-
-            // isolate relevant characters (reversed since the black king side rook is on
-            // the right)
-            char[] homeBase = new StringBuilder(homeBaseString).reverse().toString().split("k")[0]
-                    .toCharArray();
-
-            // check that the rook is in the correct position
-            if (homeBase[0] != 'r') {
-                System.out.println(
-                        "FEN has a castling contradiction for black king side castle (rook is not in the correct position)"
-                );
-                return false;
-            }
-            int homeBaseSize = 0;
-            for (char c : homeBase) {
-                if (Character.isDigit(c)) {
-                    homeBaseSize += Character.getNumericValue(c);
-                } else {
-                    homeBaseSize++;
-                }
-            }
-            // check that the king is in the correct position
-            if (homeBaseSize != 3) {
-                System.out.println(
-                        "FEN has a castling contradiction for black king side castle (king is not in the correct position)"
-                );
-                return false;
-            }
-        }
-
-        // check that WHITE's QUEEN side castle is valid
-        if (castleStatement.contains("Q")) {
-            String homeBaseString = rows[7];
-
-            // check that the king and rook exist
-            if (!homeBaseString.contains("K") || !homeBaseString.contains("R")) {
-                System.out.println(
-                        "FEN has a castling contradiction for white queen side castle (missing king or rook on back rank)"
-                );
-                return false;
-            }
-
-            // isolate relevant characters
-            char[] homeBase = homeBaseString.split("K")[0].toCharArray();
-
-            // check that the rook is in the correct position
-            if (homeBase[0] != 'R') {
-                System.out.println(
-                        "FEN has a castling contradiction for white queen side castle (rook is not in the correct position)"
-                );
-                return false;
-            }
-            int homeBaseSize = 0;
-            for (char c : homeBase) {
-                if (Character.isDigit(c)) {
-                    homeBaseSize += Character.getNumericValue(c);
-                } else {
-                    homeBaseSize++;
-                }
-            }
-            // check that the king is in the correct position
-            if (homeBaseSize != 4) {
-                System.out.println(
-                        "FEN has a castling contradiction for white queen side castle (king is not in the correct position)"
-                );
-                return false;
-            }
-        }
-
-        // check that WHITE's KING side castle is valid
-        if (castleStatement.contains("K")) {
-            String homeBaseString = rows[7];
-
-            // check that the king and rook exist
-            if (!homeBaseString.contains("K") || !homeBaseString.contains("R")) {
-                System.out.println(
-                        "FEN has a castling contradiction for white king side castle (missing king or rook on back rank)"
-                );
-                return false;
-            }
-
-            // isolate relevant characters (reversed since the white king side rook is on
-            // the right)
-            char[] homeBase = new StringBuilder(homeBaseString).reverse().toString().split("K")[0]
-                    .toCharArray();
-
-            // check that the rook is in the correct position
-            if (homeBase[0] != 'R') {
-                System.out.println(
-                        "FEN has a castling contradiction for white king side castle (rook is not in the correct position)"
-                );
-                return false;
-            }
-            int homeBaseSize = 0;
-            for (char c : homeBase) {
-                if (Character.isDigit(c)) {
-                    homeBaseSize += Character.getNumericValue(c);
-                } else {
-                    homeBaseSize++;
-                }
-            }
-            // check that the king is in the correct position
-            if (homeBaseSize != 3) {
-                System.out.println(
-                        "FEN has a castling contradiction for white king side castle (king is not in the correct position)"
-                );
-                return false;
-            }
-        }
-
-        // SECTION 4: Check that the en passant target square is valid
-        String enPassantTarget = parts[3];
-
-        if (!enPassantTarget.equals("-")) {
-            // First validate the format: must be a file (a-h) followed by rank (3 or 6)
-            if (!enPassantTarget.matches("^[a-h][36]$")) {
-                System.out.println(
-                        "FEN has invalid en passant target square format (must be a-h followed by 3 or 6, recieved "
-                                + enPassantTarget + ")"
-                );
-                return false;
-            }
-
-            // Convert algebraic notation to array indices
-            int file = enPassantTarget.charAt(0) - 'a';
-            int rank = Character.getNumericValue(enPassantTarget.charAt(1));
-
-            // Check if there's a pawn of the correct color in the right position
-            int pawnRank = rank + (rank == 5 ? -1 : 1); // For f3 (rank=5), check rank 4; for f6
-                                                        // (rank=2), check rank 3
-
-            String pawnRow = rows[pawnRank];
-
-            // Debug print to see what's happening
-            System.out.println("Checking for pawn at rank " + pawnRank + " file " + file);
-            System.out.println("Row contents: " + pawnRow);
-
-            // Find the piece at the target file position
-            int currentFile = 0;
-            char pieceAtFile = '-';
-            for (char c : pawnRow.toCharArray()) {
-                if (currentFile == file) {
-                    if (Character.isDigit(c)) {
-                        pieceAtFile = '-';
-                    } else {
-                        pieceAtFile = c;
-                    }
-                    break;
-                }
-                if (Character.isDigit(c)) {
-                    currentFile += Character.getNumericValue(c);
-                } else {
-                    currentFile++;
-                }
-                if (currentFile > file) {
-                    pieceAtFile = '-';
-                    break;
-                }
-            }
-
-            // Check if there's a pawn of the correct color
-            char expectedPawn = rank == 2 ? 'p' : 'P'; // Black pawn for 3rd rank, white pawn for
-                                                       // 6th
-            if (pieceAtFile != expectedPawn) {
-                System.out.println(
-                        "FEN has invalid en passant target square (no pawn in correct position)"
-                );
-                System.out.println("Expected " + expectedPawn + " but found " + pieceAtFile);
-                return false;
-            }
-        }
-
-        // SECTION 5: Check that the halfmove clock is valid
-        String halfMoveClockStatement = parts[4];
-
-        if (!halfMoveClockStatement.matches("^[0-9]+$")) {
-            System.out.println("FEN has invalid halfmove clock (" + halfMoveClockStatement + ")");
-            return false;
-        }
+    public PositionSnapshot getSnapshot() {
+        return snapshot;
+    }
 
-        int halfMoveClock = Integer.parseInt(halfMoveClockStatement);
+    private void publishSnapshot() {
+        snapshot = position.snapshot();
+    }
 
-        // If there's an en passant target, halfmove clock must be 0
-        if (!parts[3].equals("-") && halfMoveClock != 0) {
-            System.out.println(
-                    "FEN has invalid halfmove clock (must be 0 when en passant is available)"
-            );
-            return false;
-        }
+    /*----------------------------------
+    --- Coordinate helpers -------------
+    ----------------------------------*/
 
-        // SECTION 6: Check that the fullmove number is valid
-        String fullMoveNumberStatement = parts[5];
+    /**
+     * Converts a {file, rank} position to a bitboard square index.
+     */
+    private static int toSquare(int[] pos) {
+        return Position.square(pos[0], pos[1]);
+    }
 
-        if (!fullMoveNumberStatement.matches("^[0-9]+$")) {
-            System.out.println("FEN has invalid fullmove number (" + fullMoveNumberStatement + ")");
-            return false;
-        }
+    /**
+     * Converts a bitboard square index to a {file, rank} position.
+     */
+    private static int[] toCoordinates(int square) {
+        return new int[] { Position.fileOf(square), Position.rankOf(square) };
+    }
 
-        int fullMoveNumber = Integer.parseInt(fullMoveNumberStatement);
+    private static int colorIndex(Piece.Color color) {
+        return color == Piece.Color.WHITE ? Position.WHITE : Position.BLACK;
+    }
 
-        // Fullmove number must be at least 1 (games start at move 1)
-        if (fullMoveNumber < 1) {
-            System.out.println(
-                    "FEN has invalid fullmove number (must be at least 1, recieved "
-                            + fullMoveNumber + ")"
-            );
-            return false;
-        }
+    /**
+     * @return whether the piece is the one standing on its square on this board
+     */
+    private boolean isOnBoard(Piece piece) {
+        return piece.getBoard() == this && piece.isActive()
+                && getPiece(piece.getPosition()) == piece;
+    }
 
-        // Check upper bound of halfmove clock based on fullmove number
-        int maxHalfMoveClock;
-        if (parts[1].equals("w")) {
-            // Before White's move: max = 2*(F-1)
-            maxHalfMoveClock = 2 * (fullMoveNumber - 1);
-        } else {
-            // After White's move: max = 2*(F-1) + 1
-            maxHalfMoveClock = 2 * (fullMoveNumber - 1) + 1;
-        }
+    /*----------------------------------
+    --- FEN related stuff ---------------  
+    ----------------------------------*/
 
-        if (halfMoveClock > maxHalfMoveClock) {
-            System.out.println(
-                    "FEN has invalid halfmove clock (exceeds maximum possible value for given fullmove number)"
-            );
-            return false;
-        }
+    // One reader per thread, so checking and loading FENs doesn't allocate
+    private static final ThreadLocal<Fen> FEN_READERS = ThreadLocal.withInitial(Fen::new);
 
-        return true;
+    /**
+     * Checks if a given FEN string is valid. Use a {@link Fen} reader to find
+     * out what is wrong with one.
+     * 
+     * @param fen The FEN string to check.
+     * @return True if the FEN string is valid, false otherwise.
+     */
+    public static boolean isValidFEN(String fen) {
+        return FEN_READERS.get().parse(fen);
     }
 
     /**
-     * Identifies the type and color of a piece given a character.
+     * Creates a board from a FEN string.
      * 
      * @param fen The FEN string to convert to a board.
      * @return A board with the pieces in the FEN string.
      * @throws IllegalArgumentException if the FEN string is invalid.
      */
     public static Board FENtoBoard(String fen) {
+        Board board = new Board();
+        board.loadFEN(fen);
+        return board;
+    }
 
-        if (!isValidFEN(fen)) {
-            throw new IllegalArgumentException("Invalid FEN string");
+    /**
+     * Resets this board to the position in a FEN string, reusing the board,
+     * its bitboards and the Piece objects of the old position (only pieces it
+     * had too few of are made anew). The move history and taken-back moves
+     * are dropped.
+     * 
+     * @param fen The FEN string to load.
+     * @throws IllegalArgumentException if the FEN string is invalid, in which
+     *                                  case the board is unchanged
+     */
+    public void loadFEN(CharSequence fen) {
+        Fen reader = FEN_READERS.get();
+        if (!reader.parse(fen)) {
+            throw new IllegalArgumentException(
+                    "Invalid FEN string: " + reader.getError().getDescription() + " at offset "
+                            + reader.getErrorOffset()
+            );
         }
+        sparePieces.addAll(whitePieces);
+        sparePieces.addAll(blackPieces);
+        clear();
+        for (int square = 0; square < 64; square++) {
+            int piece = reader.getPieceAt(square);
+            if (piece == Position.NO_PIECE) {
+                continue;
+            }
+            Piece.Color color = Position.colorOf(piece) == Position.WHITE ? Piece.Color.WHITE
+                    : Piece.Color.BLACK;
+            placePiece(takeSparePiece(Position.typeOf(piece), color, square), square);
+        }
+        sparePieces.clear();
+        position.setSideToMove(reader.getSideToMove());
+        position.setCastlingRights(reader.getCastlingRights());
+        position.setEnPassantSquare(reader.getEnPassantSquare());
+        position.setHalfMoveClock(reader.getHalfMoveClock());
+        position.setFullMoveNumber(reader.getFullMoveNumber());
+        publishSnapshot();
+    }
 
-        String[] parts = fen.split(" ");
-        String boardString = parts[0];
-        String colorToMoveString = parts[1];
-        String castlingRightsString = parts[2];
-        String enPassantTargetString = parts[3];
-        String halfMoveClockString = parts[4];
-        String fullMoveNumberString = parts[5];
-
-        Piece.Color colorToMove = colorToMoveString.equals("w") ? Piece.Color.WHITE
-                : Piece.Color.BLACK;
-        boolean blackKingsideCastle = castlingRightsString.contains("k");
-        boolean blackQueensideCastle = castlingRightsString.contains("q");
-        boolean whiteKingsideCastle = castlingRightsString.contains("K");
-        boolean whiteQueensideCastle = castlingRightsString.contains("Q");
-        int[] enPassantTarget = enPassantTargetString.equals("-") ? null
-                : new int[] { enPassantTargetString.charAt(0) - 'a',
-                    8 - Character.getNumericValue(enPassantTargetString.charAt(1)) };
-        int halfMoveClock = Integer.parseInt(halfMoveClockString);
-        int fullMoveNumber = Integer.parseInt(fullMoveNumberString);
-
-        Board board = new Board(
-                colorToMove, halfMoveClock, fullMoveNumber, blackKingsideCastle,
-                blackQueensideCastle,
-                whiteKingsideCastle, whiteQueensideCastle, enPassantTarget
-        );
+    /**
+     * Empties the board, its game state and its history.
+     */
+    private void clear() {
+        for (Piece[] column : board) {
+            Arrays.fill(column, null);
+        }
+        whitePieces.clear();
+        blackPieces.clear();
+        position.clear();
+        for (int i = 0; i < undoCount; i++) {
+            undoStack[i].moved = null;
+            undoStack[i].captured = null;
+            undoStack[i].promoted = null;
+        }
+        undoCount = 0;
+        Arrays.fill(historyText, 0, historyCount, null);
+        historyCount = 0;
+        status = null;
+    }
 
-        // Parse the board string
-        String[] rows = boardString.split("/");
-        for (int i = 0; i < 8; i++) {
-            String row = rows[i];
-            int file = 0;
-            for (char c : row.toCharArray()) {
-                if (Character.isDigit(c)) {
-                    file += Character.getNumericValue(c);
-                } else {
-                    Piece.Color color = Character.isUpperCase(c) ? Piece.Color.WHITE
-                            : Piece.Color.BLACK;
-                    String cLower = String.valueOf(c).toLowerCase();
-                    switch (cLower) {
-                        case "p" -> board.addPiece(
-                                new Pawn(color, new int[] { file, 7 - i }, board),
-                                new int[] { file, 7 - i }
-                        );
-                        case "n" -> board.addPiece(
-                                new Knight(color, new int[] { file, 7 - i }, board),
-                                new int[] { file, 7 - i }
-                        );
-                        case "b" -> board.addPiece(
-                                new Bishop(color, new int[] { file, 7 - i }, board),
-                                new int[] { file, 7 - i }
-                        );
-                        case "r" -> board.addPiece(
-                                new Rook(color, new int[] { file, 7 - i }, board),
-                                new int[] { file, 7 - i }
-                        );
-                        case "q" -> board.addPiece(
-                                new Queen(color, new int[] { file, 7 - i }, board),
-                                new int[] { file, 7 - i }
-                        );
-                        case "k" -> board.addPiece(
-                                new King(color, new int[] { file, 7 - i }, board),
-                                new int[] { file, 7 - i }
-                        );
-                    }
-                    file++;
-                }
+    /**
+     * Moves a spare piece of a type and color to a square, or makes a new one
+     * if there is none left.
+     */
+    private Piece takeSparePiece(int type, Piece.Color color, int square) {
+        for (int i = sparePieces.size() - 1; i >= 0; i--) {
+            Piece piece = sparePieces.get(i);
+            if (piece.getColor() == color && piece.getType().ordinal() == type) {
+                sparePieces.set(i, sparePieces.get(sparePieces.size() - 1));
+                sparePieces.remove(sparePieces.size() - 1);
+                piece.setPosition(Position.fileOf(square), Position.rankOf(square));
+                piece.setActive(true);
+                return piece;
             }
         }
+        return newPiece(type, color, toCoordinates(square));
+    }
 
-        return board;
-
+    private Piece newPiece(int type, Piece.Color color, int[] coordinates) {
+        return switch (type) {
+            case Position.PAWN -> new Pawn(color, coordinates, this);
+            case Position.KNIGHT -> new Knight(color, coordinates, this);
+            case Position.BISHOP -> new Bishop(color, coordinates, this);
+            case Position.ROOK -> new Rook(color, coordinates, this);
+            case Position.QUEEN -> new Queen(color, coordinates, this);
+            default -> new King(color, coordinates, this);
+        };
     }
 
     /**
@@ -765,41 +661,83 @@ public class Board {
      * @return true if the king is in check
      */
     public boolean isInCheck(Piece.Color color) {
-        // Find the king's position
-        int[] kingPos = null;
-        for (Piece piece : color == Piece.Color.WHITE ? whitePieces : blackPieces) {
-            if (piece.getType() == Piece.Type.KING) {
-                kingPos = piece.getPosition();
-                break;
-            }
-        }
+        return position.isInCheck(colorIndex(color));
+    }
 
-        // Check if any opponent piece can capture the king
-        if (color == Piece.Color.WHITE) {
-            for (Piece piece : blackPieces) {
-                if (piece != null && piece.isActive() && piece.getColor() != color) {
-                    List<int[]> moves = piece.getSimpleMoves();
-                    for (int[] move : moves) {
-                        if (move[0] == kingPos[0] && move[1] == kingPos[1]) {
-                            return true;
-                        }
-                    }
-                }
+    /**
+     * Checks if a square is attacked by any piece of the given color.
+     * 
+     * @param square  the {file, rank} position to check
+     * @param byColor the attacking color
+     * @return true if the square is attacked
+     */
+    public boolean isSquareAttacked(int[] square, Piece.Color byColor) {
+        return position.isSquareAttacked(toSquare(square), colorIndex(byColor));
+    }
+
+    /**
+     * Works out what a capture wins once both sides have made every recapture
+     * on the target square that pays (static exchange evaluation). Nothing is
+     * moved, and the piece on oldPos may belong to either side.
+     * 
+     * @param oldPos the position of the capturing piece
+     * @param newPos the position it captures on
+     * @return the material the capturing side gains, in Piece.pieceValues
+     *         units (negative if it loses material)
+     */
+    public int see(int[] oldPos, int[] newPos) {
+        return StaticExchange.see(position, Move.of(toSquare(oldPos), toSquare(newPos))) / 100;
+    }
+
+    /**
+     * Checks whether a capture wins at least a given amount of material once
+     * the exchange on its square is played out.
+     * 
+     * @param oldPos    the position of the capturing piece
+     * @param newPos    the position it captures on
+     * @param threshold the material to reach, in Piece.pieceValues units
+     * @return true if {@code see(oldPos, newPos) >= threshold}
+     */
+    public boolean seeGreaterOrEqual(int[] oldPos, int[] newPos, int threshold) {
+        return StaticExchange.seeGreaterOrEqual(
+                position, Move.of(toSquare(oldPos), toSquare(newPos)), threshold * 100
+        );
+    }
+
+    /**
+     * Finds the pieces of a color that the opponent could win material by
+     * capturing, i.e. where capturing with the least valuable attacker wins
+     * the exchange.
+     * 
+     * @param color the color of the pieces to check
+     * @return the hanging pieces
+     */
+    public List<Piece> getHangingPieces(Piece.Color color) {
+        int us = colorIndex(color);
+        int them = 1 - us;
+        List<Piece> hanging = new ArrayList<>();
+        long occupied = position.getOccupied();
+        long pieces = position.getOccupancy(us) & ~position.getPieces(us, Position.KING);
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            long attackers = position.attackersTo(square, occupied) & position.getOccupancy(them);
+            if (attackers == 0) {
+                continue;
             }
-        } else {
-            for (Piece piece : whitePieces) {
-                if (piece != null && piece.isActive() && piece.getColor() != color) {
-                    List<int[]> moves = piece.getSimpleMoves();
-                    for (int[] move : moves) {
-                        if (move[0] == kingPos[0] && move[1] == kingPos[1]) {
-                            return true;
-                        }
+            for (int type = Position.PAWN; type <= Position.KING; type++) {
+                long ofType = attackers & position.getPieces(them, type);
+                if (ofType != 0) {
+                    int move = Move.of(Long.numberOfTrailingZeros(ofType), square);
+                    if (StaticExchange.seeGreaterOrEqual(position, move, 1)) {
+                        int[] coordinates = toCoordinates(square);
+                        hanging.add(board[coordinates[0]][coordinates[1]]);
                     }
+                    break;
                 }
             }
         }
-
-        return false;
+        return hanging;
     }
 
     /**
@@ -808,7 +746,8 @@ public class Board {
      * @return the target square coordinates, or null if none exists
      */
     public int[] getEnPassantTarget() {
-        return enPassantTarget != null ? Arrays.copyOf(enPassantTarget, 2) : null;
+        int square = position.getEnPassantSquare();
+        return square != Position.NO_SQUARE ? toCoordinates(square) : null;
     }
 
     /**
@@ -817,11 +756,7 @@ public class Board {
      * @return A new Board instance with the same state
      */
     public Board copy() {
-        Board newBoard = new Board(
-                this.toMove, this.halfMoveClock, this.fullMoveNumber, this.blackKingsideCastle,
-                this.blackQueensideCastle, this.whiteKingsideCastle, this.whiteQueensideCastle,
-                this.enPassantTarget
-        );
+        Board newBoard = new Board();
 
         // Copy pieces
         for (int i = 0; i < 8; i++) {
@@ -837,10 +772,14 @@ public class Board {
                         case QUEEN -> new Queen(piece.getColor(), new int[] { i, j }, newBoard);
                         case KING -> new King(piece.getColor(), new int[] { i, j }, newBoard);
                     };
-                    newBoard.addPiece(newPiece, new int[] { i, j });
+                    newBoard.placePiece(newPiece, new int[] { i, j });
                 }
             }
         }
+
+        // Copy the game state along with the bitboards
+        newBoard.position.copyFrom(this.position);
+        newBoard.publishSnapshot();
         return newBoard;
     }
 
@@ -852,18 +791,50 @@ public class Board {
      */
     public Map<Piece, List<int[]>> getLegalMoves(Piece.Color color) {
         Map<Piece, List<int[]>> moves = new HashMap<>();
-        List<Piece> pieces = color == Piece.Color.WHITE ? whitePieces : blackPieces;
-        for (Piece piece : pieces) {
-            if (piece.isActive()) {
-                List<int[]> currentMoves = piece.getLegalMoves();
-                if (!currentMoves.isEmpty()) {
-                    moves.put(piece, currentMoves);
-                }
+        if (colorIndex(color) != position.getSideToMove()) {
+            return moves;
+        }
+        moveBuffer.clear();
+        position.generateLegalMoves(moveBuffer);
+        for (int i = 0; i < moveBuffer.size(); i++) {
+            int move = moveBuffer.get(i);
+            // Board only ever promotes to a queen
+            if (Move.isPromotion(move) && Move.promotion(move) != Position.QUEEN) {
+                continue;
             }
+            int[] from = toCoordinates(Move.from(move));
+            moves.computeIfAbsent(board[from[0]][from[1]], piece -> new ArrayList<>())
+                    .add(toCoordinates(Move.to(move)));
         }
         return moves;
     }
 
+    /**
+     * Gets the legal moves of a single piece. Pieces that are not on this board
+     * or whose side is not to move have none.
+     * 
+     * @param piece the piece to get moves for
+     * @return a list of positions the piece can move to
+     */
+    public List<int[]> getLegalMoves(Piece piece) {
+        if (!isOnBoard(piece)) {
+            return new ArrayList<>();
+        }
+        return targetsToList(position.getLegalTargets(toSquare(piece.getPosition())));
+    }
+
+    /**
+     * Converts a bitboard of destination squares to a list of positions.
+     */
+    private static List<int[]> targetsToList(long targets) {
+        List<int[]> list = new ArrayList<>(Long.bitCount(targets));
+        while (targets != 0) {
+            list.add(toCoordinates(Long.numberOfTrailingZeros(targets)));
+            targets &= targets - 1;
+        }
+        return list;
+    }
+
     /**
      * Checks if the given color is in checkmate.
      * 
@@ -871,7 +842,11 @@ public class Board {
      * @return true if the color is in checkmate
      */
     public boolean isCheckmate(Piece.Color color) {
-        return isInCheck(color) && getLegalMoves(color).isEmpty();
+        if (color != getToMove()) {
+            // the side not to move has no legal moves
+            return isInCheck(color);
+        }
+        return getStatus().getReason() == GameStatus.Reason.CHECKMATE;
     }
 
     /**
@@ -881,347 +856,203 @@ public class Board {
      * @return true if the color is in stalemate
      */
     public boolean isStalemate(Piece.Color color) {
-        return !isInCheck(color) && getLegalMoves(color).isEmpty();
+        if (color != getToMove()) {
+            return !isInCheck(color);
+        }
+        GameStatus current = getStatus();
+        return !current.isInCheck() && current.getLegalMoveCount() == 0;
     }
 
     public boolean is50MoveRule() {
-        return halfMoveClock >= 100;
+        return position.getHalfMoveClock() >= 100;
     }
 
     /**
      * Gets the color of the player to move
      */
     public Piece.Color getToMove() {
-        return toMove;
+        return position.getSideToMove() == Position.WHITE ? Piece.Color.WHITE
+                : Piece.Color.BLACK;
     }
 
     /**
      * Gets the half move clock
      */
     public int getHalfMoveClock() {
-        return halfMoveClock;
+        return position.getHalfMoveClock();
     }
 
     /**
      * Gets the full move number
      */
     public int getFullMoveNumber() {
-        return fullMoveNumber;
-    }
-
-    /**
-     * Updates game state after a move
-     * 
-     * @param piece  The piece that was moved
-     * @param oldPos The position the piece moved from
-     * @param newPos The position the piece moved to
-     */
-    public void updateGameState(Piece piece, int[] oldPos, int[] newPos) {
-        // Determine if move is a capture
-        boolean isCapture = getPiece(newPos) != null ||
-                (piece.getType() == Piece.Type.PAWN && oldPos[1] != newPos[1]);
-
-        // Make the move
-        Piece capturedPiece = getPiece(newPos);
-        if (capturedPiece != null) {
-            capturedPiece.setActive(false);
-        }
-
-        // Store old state
-        Piece.Color oppositeColor = (piece.getColor() == Piece.Color.WHITE) ? Piece.Color.BLACK
-                : Piece.Color.WHITE;
-
-        // Make temporary move to check for check/checkmate
-        Board tempBoard = this.copy();
-        tempBoard.tryMove(oldPos, newPos);
-        boolean causesCheck = tempBoard.isInCheck(oppositeColor);
-        boolean causesCheckmate = tempBoard.isCheckmate(oppositeColor);
-
-        // Record the move
-        recordMove(piece, oldPos, newPos, isCapture, causesCheck, causesCheckmate);
-
-        // Update move counters
-        if (piece.getType() == Piece.Type.PAWN || isCapture) {
-            halfMoveClock = 0;
-        } else {
-            halfMoveClock++;
-        }
-
-        if (toMove == Piece.Color.BLACK) {
-            fullMoveNumber++;
-        }
-
-        // Update castling rights
-        if (piece.getType() == Piece.Type.KING) {
-            if (piece.getColor() == Piece.Color.WHITE) {
-                whiteKingsideCastle = false;
-                whiteQueensideCastle = false;
-            } else {
-                blackKingsideCastle = false;
-                blackQueensideCastle = false;
-            }
-        } else if (piece.getType() == Piece.Type.ROOK) {
-            if (oldPos[1] == 0) { // White's back rank
-                if (oldPos[0] == 0)
-                    whiteQueensideCastle = false;
-                if (oldPos[0] == 7)
-                    whiteKingsideCastle = false;
-            } else if (oldPos[1] == 7) { // Black's back rank
-                if (oldPos[0] == 0)
-                    blackQueensideCastle = false;
-                if (oldPos[0] == 7)
-                    blackKingsideCastle = false;
-            }
-        }
-
-        // Update en passant target
-        if (piece.getType() == Piece.Type.PAWN && Math.abs(newPos[1] - oldPos[1]) == 2) {
-            enPassantTarget = new int[] { (oldPos[1] + newPos[1]) / 2, oldPos[0] };
-        } else {
-            enPassantTarget = null;
-        }
-
-        // Switch turns
-        toMove = (toMove == Piece.Color.WHITE) ? Piece.Color.BLACK : Piece.Color.WHITE;
-
-        // Record the position after the move
-        positionHistory.add(getCurrentPosition());
+        return position.getFullMoveNumber();
     }
 
     /**
      * Checks if the game is drawn by insufficient material
      */
     public boolean isInsufficientMaterial() {
-        // Count active pieces
-        int whitePieceCount = 0;
-        for (Piece p : whitePieces) {
-            if (p.isActive()) {
-                whitePieceCount++;
-            }
-        }
-
-        int blackPieceCount = 0;
-        for (Piece p : blackPieces) {
-            if (p.isActive()) {
-                blackPieceCount++;
-            }
-        }
-
-        // King vs King
-        if (whitePieceCount == 1 && blackPieceCount == 1) {
-            return true;
-        }
-
-        // King and Bishop/Knight vs King
-        if ((whitePieceCount == 2 && blackPieceCount == 1) ||
-                (whitePieceCount == 1 && blackPieceCount == 2)) {
-            for (Piece p : whitePieces) {
-                if (p.isActive()
-                        && (p.getType() == Piece.Type.BISHOP || p.getType() == Piece.Type.KNIGHT)) {
-                    return true;
-                }
-            }
-            for (Piece p : blackPieces) {
-                if (p.isActive()
-                        && (p.getType() == Piece.Type.BISHOP || p.getType() == Piece.Type.KNIGHT)) {
-                    return true;
-                }
+        // The piece bitboards are kept up to date move by move, so counting
+        // material is a popcount rather than a walk over the piece lists
+        for (int color = Position.WHITE; color <= Position.BLACK; color++) {
+            if (position.getPieceCount(color, Position.PAWN) > 0
+                    || position.getPieceCount(color, Position.ROOK) > 0
+                    || position.getPieceCount(color, Position.QUEEN) > 0) {
+                return false;
             }
         }
+        int whiteMinors = position.getPieceCount(Position.WHITE, Position.KNIGHT)
+                + position.getPieceCount(Position.WHITE, Position.BISHOP);
+        int blackMinors = position.getPieceCount(Position.BLACK, Position.KNIGHT)
+                + position.getPieceCount(Position.BLACK, Position.BISHOP);
 
-        return false;
+        // King vs King, or King and Bishop/Knight vs King
+        return whiteMinors + blackMinors <= 1;
     }
 
     /**
-     * Checks if the game is drawn by threefold repetition
-     * Note: You'll need to track position history to implement this
+     * Checks if the game is drawn by threefold repetition. Positions are
+     * compared by Zobrist key, and only positions since the last capture or
+     * pawn move are considered.
      */
     public boolean isThreefoldRepetition() {
-        if (positionHistory.size() < 5) { // Need at least 5 moves for 3 repetitions
-            return false;
-        }
-
-        String currentPos = positionHistory.get(positionHistory.size() - 1);
-        int repetitions = 0;
-
-        // Count occurrences of current position in history
-        for (String pos : positionHistory) {
-            if (pos.equals(currentPos)) {
-                repetitions++;
-                if (repetitions >= 3) {
-                    return true;
-                }
-            }
-        }
+        return position.countRepetitions() >= 2;
+    }
 
-        return false;
+    /**
+     * Gets the Zobrist key of the current position. Equal positions (same
+     * pieces, side to move, castling rights and en passant square) have equal
+     * keys, so it can be used to index caches.
+     * 
+     * @return the 64-bit position key
+     */
+    public long getZobristKey() {
+        return position.getHash();
     }
 
     /**
      * Checks if the game is over
      */
     public boolean isGameOver() {
-        return isCheckmate(toMove) || isStalemate(toMove) ||
-                is50MoveRule() || isInsufficientMaterial() ||
-                isThreefoldRepetition();
+        return getStatus().isGameOver();
     }
 
     /**
-     * Converts a position array to algebraic notation (e.g. [0,0] -> "a1")
+     * Gets the status of the current position. It is worked out the first
+     * time it is asked for after a change, with a single pass over the legal
+     * moves, and shared until the next change.
+     * 
+     * @return the status of the side to move
      */
-    private String positionToAlgebraic(int[] pos) {
-        char file = (char) ('a' + pos[0]); // First index is file (a-h)
-        int rank = pos[1] + 1; // Second index is rank (1-8)
-        return "" + file + rank;
+    public GameStatus getStatus() {
+        if (status != null && statusKey == position.getHash()) {
+            return status;
+        }
+        int us = position.getSideToMove();
+        boolean inCheck = position.isInCheck(us);
+        moveBuffer.clear();
+        position.generateLegalMoves(moveBuffer);
+        int legalMoveCount = moveBuffer.size();
+
+        GameStatus.Reason reason = GameStatus.Reason.NONE;
+        if (legalMoveCount == 0) {
+            reason = inCheck ? GameStatus.Reason.CHECKMATE : GameStatus.Reason.STALEMATE;
+        } else if (is50MoveRule()) {
+            reason = GameStatus.Reason.FIFTY_MOVE_RULE;
+        } else if (isInsufficientMaterial()) {
+            reason = GameStatus.Reason.INSUFFICIENT_MATERIAL;
+        } else if (isThreefoldRepetition()) {
+            reason = GameStatus.Reason.THREEFOLD_REPETITION;
+        }
+        status = new GameStatus(getToMove(), inCheck, legalMoveCount, reason);
+        statusKey = position.getHash();
+        return status;
     }
 
     /**
-     * Adds a move to the move history in algebraic notation
+     * Adds a move to the move history. Only the packed move, the type of the
+     * piece that moved and what its notation needs to add are kept; see
+     * {@link #getMoveHistory()} for the notation.
      * 
-     * @param piece       The piece that moved
-     * @param oldPos      Starting position
-     * @param newPos      Ending position
-     * @param isCapture   Whether the move was a capture
-     * @param isCheck     Whether the move puts opponent in check
-     * @param isCheckmate Whether the move is checkmate
+     * @param type           The type of the piece that moved
+     * @param move           The packed move
+     * @param disambiguation The origin file/rank the notation needs
+     * @param isCheck        Whether the move puts opponent in check
+     * @param isCheckmate    Whether the move is checkmate
      */
     private void recordMove(
-            Piece piece, int[] oldPos, int[] newPos, boolean isCapture,
-            boolean isCheck, boolean isCheckmate
+            int type, int move, int disambiguation, boolean isCheck, boolean isCheckmate
     ) {
-        StringBuilder moveNotation = new StringBuilder();
-
-        // Add piece letter (except for pawns)
-        if (piece.getType() != Piece.Type.PAWN) {
-            moveNotation.append(switch (piece.getType()) {
-                case KING -> "K";
-                case QUEEN -> "Q";
-                case ROOK -> "R";
-                case BISHOP -> "B";
-                case KNIGHT -> "N";
-                default -> "";
-            });
-        }
-
-        // Handle castling
-        if (piece.getType() == Piece.Type.KING && Math.abs(newPos[1] - oldPos[1]) == 2) {
-            moveNotation = new StringBuilder(newPos[1] > oldPos[1] ? "O-O" : "O-O-O");
-        } else {
-            // Add capture notation
-            if (isCapture) {
-                if (piece.getType() == Piece.Type.PAWN) {
-                    moveNotation.append(positionToAlgebraic(oldPos).charAt(0));
-                }
-                moveNotation.append("x");
-            }
-
-            // Add destination square
-            moveNotation.append(positionToAlgebraic(newPos));
-        }
-
-        // Add check/checkmate notation
-        if (isCheckmate) {
-            moveNotation.append("#");
-        } else if (isCheck) {
-            moveNotation.append("+");
+        if (historyCount == history.length) {
+            history = Arrays.copyOf(history, historyCount * 2);
+            historyText = Arrays.copyOf(historyText, historyCount * 2);
         }
+        // move (32 bits), piece type (3), disambiguation (2), check (1),
+        // checkmate (1)
+        history[historyCount++] = (move & 0xFFFFFFFFL)
+                | (long) type << 32
+                | (long) disambiguation << 35
+                | (isCheck ? 1L : 0L) << 37
+                | (isCheckmate ? 1L : 0L) << 38;
+    }
 
-        moveHistory.add(moveNotation.toString());
+    /**
+     * Writes a recorded move in standard algebraic notation
+     */
+    private static String moveNotation(long record) {
+        StringBuilder moveNotation = new StringBuilder(8);
+        Notation.appendSan(
+                moveNotation, (int) (record >>> 32) & 7, (int) record,
+                (int) (record >>> 35) & 3, (record & 1L << 37) != 0, (record & 1L << 38) != 0
+        );
+        return moveNotation.toString();
     }
 
     /**
-     * Gets the move history in algebraic notation
+     * Gets the move history in standard algebraic notation, which
+     * {@link #movePiece(String)} reads back. Each move is written out the
+     * first time it is asked for.
      * 
      * @return List of moves in algebraic notation
      */
     public List<String> getMoveHistory() {
-        return new ArrayList<>(moveHistory);
+        List<String> moves = new ArrayList<>(historyCount);
+        for (int i = 0; i < historyCount; i++) {
+            if (historyText[i] == null) {
+                historyText[i] = moveNotation(history[i]);
+            }
+            moves.add(historyText[i]);
+        }
+        return moves;
     }
 
     /**
      * Converts the current board state to FEN notation
      */
     public String boardToFEN() {
-        StringBuilder fen = new StringBuilder();
-
-        // Add piece positions
-        for (int i = 0; i < 8; i++) { // Start from rank 8 (index 0) to rank 1 (index 7)
-            int emptyCount = 0;
-            for (int j = 0; j < 8; j++) {
-                Piece piece = board[i][j];
-                if (piece == null) {
-                    emptyCount++;
-                } else {
-                    if (emptyCount > 0) {
-                        fen.append(emptyCount);
-                        emptyCount = 0;
-                    }
-                    char pieceChar = switch (piece.getType()) {
-                        case PAWN -> 'p';
-                        case KNIGHT -> 'n';
-                        case BISHOP -> 'b';
-                        case ROOK -> 'r';
-                        case QUEEN -> 'q';
-                        case KING -> 'k';
-                    };
-                    fen.append(
-                            piece.getColor() == Piece.Color.WHITE ? Character.toUpperCase(pieceChar)
-                                    : pieceChar
-                    );
-                }
-            }
-            if (emptyCount > 0) {
-                fen.append(emptyCount);
-            }
-            if (i < 7)
-                fen.append('/');
-        }
-
-        // Add color to move
-        fen.append(' ').append(toMove == Piece.Color.WHITE ? 'w' : 'b');
-
-        // Add castling rights
-        fen.append(' ');
-        if (whiteKingsideCastle) {
-            fen.append('K');
-        }
-        if (whiteQueensideCastle) {
-            fen.append('Q');
-        }
-        if (blackKingsideCastle) {
-            fen.append('k');
-        }
-        if (blackQueensideCastle) {
-            fen.append('q');
-        }
-        if (!whiteKingsideCastle && !whiteQueensideCastle &&
-                !blackKingsideCastle && !blackQueensideCastle) {
-            fen.append('-');
-        }
-
-        // Add en passant target
-        fen.append(' ');
-        if (enPassantTarget != null) {
-            fen.append(positionToAlgebraic(enPassantTarget));
-        } else {
-            fen.append('-');
-        }
-
-        // Add move counters
-        fen.append(' ').append(halfMoveClock);
-        fen.append(' ').append(fullMoveNumber);
-
+        StringBuilder fen = new StringBuilder(90);
+        appendFEN(fen);
         return fen.toString();
     }
 
     /**
-     * Gets the current position in a format suitable for repetition checking
-     * (excludes move counters which don't affect position identity)
+     * Appends the current board state in FEN notation
+     * 
+     * @param out where to append it
+     */
+    public void appendFEN(StringBuilder out) {
+        Fen.write(position, out);
+    }
+
+    /**
+     * Appends the current board state in FEN notation
+     * 
+     * @param out where to append it
+     * @throws IOException if {@code out} does
      */
-    private String getCurrentPosition() {
-        String fen = boardToFEN();
-        // Return everything before the move counters (last two fields)
-        return fen.substring(0, fen.lastIndexOf(' ', fen.lastIndexOf(' ') - 1));
+    public void appendFEN(Appendable out) throws IOException {
+        Fen.write(position, out);
     }
 
     public static Board starterBoard() {
@@ -29,6 +29,7 @@ public class ChessBoard extends JPanel {
     private static final Color DARK_SQUARE = new Color(0x84, 0x77, 0xba);
     private static final Color HIGHLIGHT_SQUARE = new Color(196, 196, 136);
     private static final Color LEGAL_MOVE_SQUARE = new Color(154, 196, 136);
+    private static final Color HANGING_BORDER = new Color(0xd0, 0x30, 0x30);
 
     /**
      * Initializes the game board.
@@ -165,15 +166,36 @@ public class ChessBoard extends JPanel {
             }
         }
         
+        markHangingPieces();
+
         // Update game status
         updateStatus();
     }
 
+    /**
+     * Outlines the pieces of the side to move that the opponent could win
+     * material by capturing.
+     */
+    private void markHangingPieces() {
+        for (int rank = 0; rank < BOARD_SIZE; rank++) {
+            for (int file = 0; file < BOARD_SIZE; file++) {
+                squares[rank][file].setBorder(BorderFactory.createLineBorder(Color.BLACK));
+            }
+        }
+        for (Piece piece : gameBoard.getHangingPieces(gameBoard.getToMove())) {
+            int[] position = piece.getPosition();
+            squares[position[1]][position[0]].setBorder(
+                    BorderFactory.createLineBorder(HANGING_BORDER, 3)
+            );
+        }
+    }
+
     private void updateStatus() {
-        if (gameBoard.isGameOver()) {
-            if (gameBoard.isCheckmate(gameBoard.getToMove())) {
+        GameStatus current = gameBoard.getStatus();
+        if (current.isGameOver()) {
+            if (current.isCheckmate()) {
                 status.setText(
-                        (gameBoard.getToMove() == Piece.Color.WHITE ? "Black" : "White") +
+                        (current.getWinner() == Piece.Color.WHITE ? "White" : "Black") +
                                 " wins by checkmate!"
                 );
             } else {
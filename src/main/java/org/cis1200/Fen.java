@@ -0,0 +1,414 @@
+package org.cis1200;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+import org.cis1200.bitboard.Position;
+
+/**
+ * Reads and writes Forsyth-Edwards Notation.
+ *
+ * A reader checks a FEN in one pass over its characters, decoding it as it
+ * goes, and keeps the result until the next {@link #parse(CharSequence)}.
+ * Nothing is allocated per FEN and nothing is printed; a bad FEN leaves an
+ * {@link Error} and the offset of the character it was found at. Keep one
+ * reader per thread to load many FENs, e.g. with
+ * {@link Board#loadFEN(CharSequence)}.
+ *
+ * Besides the syntax, a FEN must have one king of each color, castling
+ * rights only for a king and rook on their home squares, an en passant
+ * target behind a pawn of the side that just moved, and move counters that
+ * fit each other. A valid en passant target that no pawn can take on is
+ * read as none, as {@link Position#makeMove(int)} would have recorded it.
+ */
+public final class Fen {
+    /**
+     * What is wrong with a FEN.
+     */
+    public enum Error {
+        NONE("no error"),
+        FIELD_COUNT("expected six fields separated by single spaces"),
+        RANK_COUNT("expected eight ranks"),
+        RANK_LENGTH("rank does not have eight squares"),
+        PIECE("invalid piece"),
+        KING_COUNT("expected one king of each color"),
+        SIDE_TO_MOVE("side to move must be w or b"),
+        CASTLING("invalid castling availability"),
+        CASTLING_CONTRADICTION("castling right without the king and rook on their squares"),
+        EN_PASSANT("invalid en passant target"),
+        HALFMOVE_CLOCK("invalid halfmove clock"),
+        FULLMOVE_NUMBER("invalid fullmove number");
+
+        private final String description;
+
+        Error(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private static final String PIECE_LETTERS = "pnbrqk";
+    private static final String CASTLING_LETTERS = "KQkq";
+    private static final int[] CASTLING_RIGHTS = { Position.WHITE_KINGSIDE,
+        Position.WHITE_QUEENSIDE, Position.BLACK_KINGSIDE, Position.BLACK_QUEENSIDE };
+    // The rook's home square for each castling right; the king's is e1 or e8
+    private static final int[] CASTLING_ROOKS = { 7, 0, 63, 56 };
+
+    // Counters longer than this can't be valid and would overflow an int
+    private static final int MAX_DIGITS = 6;
+
+    private Error error = Error.NONE;
+    private int errorOffset;
+
+    // The last FEN read, valid once parse returns true
+    private final int[] pieces = new int[64];
+    private int sideToMove;
+    private int castlingRights;
+    private int enPassantSquare;
+    private int halfMoveClock;
+    private int fullMoveNumber;
+
+    /**
+     * Checks and decodes a FEN.
+     *
+     * @param fen the FEN
+     * @return whether it is valid; if not, see {@link #getError()} and
+     *         {@link #getErrorOffset()}
+     */
+    public boolean parse(CharSequence fen) {
+        error = Error.NONE;
+        errorOffset = 0;
+        Arrays.fill(pieces, Position.NO_PIECE);
+        int length = fen.length();
+        int i = 0;
+
+        // Field 1: pieces, from rank 8 down
+        int rank = 7;
+        int file = 0;
+        int whiteKings = 0;
+        int blackKings = 0;
+        for (; i < length && fen.charAt(i) != ' '; i++) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                if (file != 8) {
+                    return fail(Error.RANK_LENGTH, i);
+                }
+                if (--rank < 0) {
+                    return fail(Error.RANK_COUNT, i);
+                }
+                file = 0;
+            } else if (c >= '0' && c <= '9') {
+                file += c - '0';
+                if (c == '0' || file > 8) {
+                    return fail(Error.RANK_LENGTH, i);
+                }
+            } else {
+                int type = PIECE_LETTERS.indexOf(c | 0x20);
+                if (type < 0) {
+                    return fail(Error.PIECE, i);
+                }
+                if (file == 8) {
+                    return fail(Error.RANK_LENGTH, i);
+                }
+                int color = c < 'a' ? Position.WHITE : Position.BLACK;
+                if (type == Position.KING) {
+                    int kings = color == Position.WHITE ? ++whiteKings : ++blackKings;
+                    if (kings > 1) {
+                        return fail(Error.KING_COUNT, i);
+                    }
+                }
+                pieces[Position.square(file++, rank)] = Position.pieceCode(color, type);
+            }
+        }
+        if (rank > 0) {
+            return fail(Error.RANK_COUNT, i);
+        }
+        if (file != 8) {
+            return fail(Error.RANK_LENGTH, i);
+        }
+        if (whiteKings == 0 || blackKings == 0) {
+            return fail(Error.KING_COUNT, 0);
+        }
+
+        // Field 2: side to move
+        if (!isFieldStart(fen, i++)) {
+            return fail(Error.FIELD_COUNT, i - 1);
+        }
+        char side = fen.charAt(i);
+        if ((side != 'w' && side != 'b') || (i + 1 < length && fen.charAt(i + 1) != ' ')) {
+            return fail(Error.SIDE_TO_MOVE, i);
+        }
+        sideToMove = side == 'w' ? Position.WHITE : Position.BLACK;
+        i++;
+
+        // Field 3: castling rights, in KQkq order without repeats
+        if (!isFieldStart(fen, i++)) {
+            return fail(Error.FIELD_COUNT, i - 1);
+        }
+        castlingRights = 0;
+        if (fen.charAt(i) == '-') {
+            i++;
+        } else {
+            int last = -1;
+            for (; i < length && fen.charAt(i) != ' '; i++) {
+                int right = CASTLING_LETTERS.indexOf(fen.charAt(i));
+                if (right <= last) {
+                    return fail(Error.CASTLING, i);
+                }
+                int king = right < 2 ? 4 : 60;
+                int color = right < 2 ? Position.WHITE : Position.BLACK;
+                if (pieces[king] != Position.pieceCode(color, Position.KING)
+                        || pieces[CASTLING_ROOKS[right]] != Position
+                                .pieceCode(color, Position.ROOK)) {
+                    return fail(Error.CASTLING_CONTRADICTION, i);
+                }
+                castlingRights |= CASTLING_RIGHTS[right];
+                last = right;
+            }
+        }
+        if (i < length && fen.charAt(i) != ' ') {
+            return fail(Error.CASTLING, i);
+        }
+
+        // Field 4: en passant target, behind a pawn that just moved two
+        // squares, so on rank 6 with white to move or rank 3 with black
+        if (!isFieldStart(fen, i++)) {
+            return fail(Error.FIELD_COUNT, i - 1);
+        }
+        int enPassantOffset = i;
+        enPassantSquare = Position.NO_SQUARE;
+        if (fen.charAt(i) == '-') {
+            i++;
+        } else {
+            if (i + 1 >= length) {
+                return fail(Error.EN_PASSANT, i);
+            }
+            int targetFile = fen.charAt(i) - 'a';
+            int targetRank = fen.charAt(i + 1) - '1';
+            int expectedRank = sideToMove == Position.WHITE ? 5 : 2;
+            if (targetFile < 0 || targetFile > 7 || targetRank != expectedRank) {
+                return fail(Error.EN_PASSANT, i);
+            }
+            int pushed = Position.square(targetFile, sideToMove == Position.WHITE ? 4 : 3);
+            if (pieces[pushed] != Position.pieceCode(1 - sideToMove, Position.PAWN)) {
+                return fail(Error.EN_PASSANT, i);
+            }
+            enPassantSquare = Position.square(targetFile, targetRank);
+            i += 2;
+        }
+        if (i < length && fen.charAt(i) != ' ') {
+            return fail(Error.EN_PASSANT, i);
+        }
+
+        // Field 5: halfmove clock
+        if (!isFieldStart(fen, i++)) {
+            return fail(Error.FIELD_COUNT, i - 1);
+        }
+        int halfMoveOffset = i;
+        halfMoveClock = 0;
+        int digits = 0;
+        for (; i < length && fen.charAt(i) != ' '; i++, digits++) {
+            char c = fen.charAt(i);
+            if (c < '0' || c > '9' || digits == MAX_DIGITS) {
+                return fail(Error.HALFMOVE_CLOCK, i);
+            }
+            halfMoveClock = halfMoveClock * 10 + c - '0';
+        }
+        if (digits == 0) {
+            return fail(Error.HALFMOVE_CLOCK, halfMoveOffset);
+        }
+
+        // Field 6: fullmove number, which ends the FEN
+        if (!isFieldStart(fen, i++)) {
+            return fail(Error.FIELD_COUNT, i - 1);
+        }
+        int fullMoveOffset = i;
+        fullMoveNumber = 0;
+        digits = 0;
+        for (; i < length && fen.charAt(i) != ' '; i++, digits++) {
+            char c = fen.charAt(i);
+            if (c < '0' || c > '9' || digits == MAX_DIGITS) {
+                return fail(Error.FULLMOVE_NUMBER, i);
+            }
+            fullMoveNumber = fullMoveNumber * 10 + c - '0';
+        }
+        if (digits == 0 || fullMoveNumber < 1) {
+            return fail(Error.FULLMOVE_NUMBER, fullMoveOffset);
+        }
+        if (i < length) {
+            return fail(Error.FIELD_COUNT, i);
+        }
+
+        // The counters must fit each other and the en passant target: a
+        // double push resets the clock, and white can't reply to one at move 1
+        if (enPassantSquare != Position.NO_SQUARE) {
+            if (sideToMove == Position.WHITE && fullMoveNumber == 1) {
+                return fail(Error.EN_PASSANT, enPassantOffset);
+            }
+            if (halfMoveClock != 0) {
+                return fail(Error.HALFMOVE_CLOCK, halfMoveOffset);
+            }
+        }
+        int maxHalfMoveClock = 2 * (fullMoveNumber - 1) + (sideToMove == Position.BLACK ? 1 : 0);
+        if (halfMoveClock > maxHalfMoveClock) {
+            return fail(Error.HALFMOVE_CLOCK, halfMoveOffset);
+        }
+
+        // Like Position.makeMove, keep the target only if a pawn can take on
+        // it, so the position hashes the same as after the double push
+        if (enPassantSquare != Position.NO_SQUARE) {
+            int pushed = enPassantSquare + (sideToMove == Position.WHITE ? -8 : 8);
+            int capturer = Position.pieceCode(sideToMove, Position.PAWN);
+            int pushedFile = Position.fileOf(pushed);
+            if (!(pushedFile > 0 && pieces[pushed - 1] == capturer)
+                    && !(pushedFile < 7 && pieces[pushed + 1] == capturer)) {
+                enPassantSquare = Position.NO_SQUARE;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return whether a field starts after the separator at an offset
+     */
+    private static boolean isFieldStart(CharSequence fen, int separator) {
+        return separator + 1 < fen.length() && fen.charAt(separator) == ' '
+                && fen.charAt(separator + 1) != ' ';
+    }
+
+    private boolean fail(Error error, int offset) {
+        this.error = error;
+        this.errorOffset = offset;
+        return false;
+    }
+
+    /**
+     * @return what was wrong with the last FEN read, or {@link Error#NONE}
+     */
+    public Error getError() {
+        return error;
+    }
+
+    /**
+     * @return the offset in the last FEN read of the character where the
+     *         error was found
+     */
+    public int getErrorOffset() {
+        return errorOffset;
+    }
+
+    /**
+     * @return the piece code on a square of the last FEN read, or
+     *         {@link Position#NO_PIECE}
+     */
+    public int getPieceAt(int square) {
+        return pieces[square];
+    }
+
+    public int getSideToMove() {
+        return sideToMove;
+    }
+
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    public int getHalfMoveClock() {
+        return halfMoveClock;
+    }
+
+    public int getFullMoveNumber() {
+        return fullMoveNumber;
+    }
+
+    /**
+     * Writes a position as a FEN.
+     *
+     * @param position the position
+     * @param out      where to append it
+     * @throws IOException if {@code out} does
+     */
+    public static void write(Position position, Appendable out) throws IOException {
+        for (int rank = 7; rank >= 0; rank--) {
+            int empty = 0;
+            for (int file = 0; file < 8; file++) {
+                int piece = position.getPieceAt(Position.square(file, rank));
+                if (piece == Position.NO_PIECE) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    out.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                char letter = PIECE_LETTERS.charAt(Position.typeOf(piece));
+                out.append(
+                        Position.colorOf(piece) == Position.WHITE ? Character.toUpperCase(letter)
+                                : letter
+                );
+            }
+            if (empty > 0) {
+                out.append((char) ('0' + empty));
+            }
+            if (rank > 0) {
+                out.append('/');
+            }
+        }
+
+        out.append(' ').append(position.getSideToMove() == Position.WHITE ? 'w' : 'b');
+
+        out.append(' ');
+        int rights = position.getCastlingRights();
+        if (rights == 0) {
+            out.append('-');
+        }
+        for (int i = 0; i < 4; i++) {
+            if ((rights & CASTLING_RIGHTS[i]) != 0) {
+                out.append(CASTLING_LETTERS.charAt(i));
+            }
+        }
+
+        out.append(' ');
+        int enPassant = position.getEnPassantSquare();
+        if (enPassant == Position.NO_SQUARE) {
+            out.append('-');
+        } else {
+            out.append((char) ('a' + Position.fileOf(enPassant)))
+                    .append((char) ('1' + Position.rankOf(enPassant)));
+        }
+
+        out.append(' ');
+        appendNumber(out, position.getHalfMoveClock());
+        out.append(' ');
+        appendNumber(out, position.getFullMoveNumber());
+    }
+
+    /**
+     * Writes a position as a FEN to a StringBuilder, which can't fail.
+     *
+     * @param position the position
+     * @param out      where to append it
+     */
+    public static void write(Position position, StringBuilder out) {
+        try {
+            write(position, (Appendable) out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void appendNumber(Appendable out, int value) throws IOException {
+        if (value >= 10) {
+            appendNumber(out, value / 10);
+        }
+        out.append((char) ('0' + value % 10));
+    }
+}
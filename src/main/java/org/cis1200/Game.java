@@ -2,13 +2,23 @@ package org.cis1200;
 
 import javax.swing.SwingUtilities;
 
+import org.cis1200.uci.UciEngine;
+
 public class Game {
     /**
      * Main method run to start and run the game. Initializes the runnable game
      * class of your choosing and runs it. IMPORTANT: Do NOT delete! You MUST
      * include a main method in your final submission.
+     *
+     * Run with {@code --uci} to start the headless UCI engine on standard
+     * input and output instead of the window.
      */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--uci")) {
+            UciEngine.main(args);
+            return;
+        }
+
         // Set the game you want to run here
         Runnable game = new RunChess();
 
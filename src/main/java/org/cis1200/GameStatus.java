@@ -0,0 +1,83 @@
+package org.cis1200;
+
+import org.cis1200.util.Piece;
+
+/**
+ * Where a game stands after a move: whether the side to move is in check, how
+ * many legal moves it has, and whether (and why) the game is over.
+ *
+ * A {@link Board} works this out once per position and hands out the same
+ * status until the position changes.
+ */
+public final class GameStatus {
+    /**
+     * Why a game ended, in the order the rules are checked.
+     */
+    public enum Reason {
+        /** The game goes on. */
+        NONE,
+        /** The side to move is in check and has no legal move. */
+        CHECKMATE,
+        /** The side to move is not in check and has no legal move. */
+        STALEMATE,
+        /** A hundred plies without a capture or pawn move. */
+        FIFTY_MOVE_RULE,
+        /** Neither side has the material to mate. */
+        INSUFFICIENT_MATERIAL,
+        /** The same position has occurred three times. */
+        THREEFOLD_REPETITION
+    }
+
+    private final Piece.Color toMove;
+    private final boolean inCheck;
+    private final int legalMoveCount;
+    private final Reason reason;
+
+    public GameStatus(Piece.Color toMove, boolean inCheck, int legalMoveCount, Reason reason) {
+        this.toMove = toMove;
+        this.inCheck = inCheck;
+        this.legalMoveCount = legalMoveCount;
+        this.reason = reason;
+    }
+
+    public Piece.Color getToMove() {
+        return toMove;
+    }
+
+    /**
+     * @return whether the side to move is in check
+     */
+    public boolean isInCheck() {
+        return inCheck;
+    }
+
+    /**
+     * @return the number of legal moves of the side to move, counting each
+     *         promotion piece separately
+     */
+    public int getLegalMoveCount() {
+        return legalMoveCount;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public boolean isGameOver() {
+        return reason != Reason.NONE;
+    }
+
+    public boolean isCheckmate() {
+        return reason == Reason.CHECKMATE;
+    }
+
+    /**
+     * @return the side that delivered mate, or null if the game isn't won
+     */
+    public Piece.Color getWinner() {
+        if (reason != Reason.CHECKMATE) {
+            return null;
+        }
+        return toMove == Piece.Color.WHITE ? Piece.Color.BLACK : Piece.Color.WHITE;
+    }
+}
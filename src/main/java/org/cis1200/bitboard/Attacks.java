@@ -0,0 +1,178 @@
+package org.cis1200.bitboard;
+
+/**
+ * Precomputed board geometry shared by move generation, check detection and
+ * evaluation: leaper attacks, rays, the squares between and on the line
+ * through two squares, and distances. Everything is built once when the class
+ * loads so callers only ever do array lookups. Slider attacks with blockers
+ * come from {@link Magics}.
+ */
+public final class Attacks {
+
+    // Ray directions, as indices into the ray table; flipping the lowest bit
+    // gives the opposite direction
+    public static final int NORTH = 0;
+    public static final int SOUTH = 1;
+    public static final int EAST = 2;
+    public static final int WEST = 3;
+    public static final int NORTH_EAST = 4;
+    public static final int SOUTH_WEST = 5;
+    public static final int NORTH_WEST = 6;
+    public static final int SOUTH_EAST = 7;
+
+    // { file step, rank step } for each direction above
+    private static final int[][] DIRECTIONS = { { 0, 1 }, { 0, -1 }, { 1, 0 }, { -1, 0 },
+        { 1, 1 }, { -1, -1 }, { -1, 1 }, { 1, -1 } };
+    private static final int[][] KNIGHT_OFFSETS = { { 2, 1 }, { 2, -1 }, { -2, 1 }, { -2, -1 },
+        { 1, 2 }, { -1, 2 }, { 1, -2 }, { -1, -2 } };
+
+    private static final long[] KNIGHT = new long[64];
+    private static final long[] KING = new long[64];
+    private static final long[][] PAWN = new long[2][64];
+    private static final long[][] RAYS = new long[8][64];
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+    private static final int[][] DISTANCE = new int[64][64];
+
+    static {
+        for (int sq = 0; sq < 64; sq++) {
+            KNIGHT[sq] = offsetAttacks(sq, KNIGHT_OFFSETS);
+            KING[sq] = offsetAttacks(sq, DIRECTIONS);
+            PAWN[Position.WHITE][sq] = offsetAttacks(sq, new int[][] { { 1, 1 }, { -1, 1 } });
+            PAWN[Position.BLACK][sq] = offsetAttacks(sq, new int[][] { { 1, -1 }, { -1, -1 } });
+            for (int dir = 0; dir < 8; dir++) {
+                RAYS[dir][sq] = walkRay(sq, dir);
+            }
+        }
+
+        for (int a = 0; a < 64; a++) {
+            for (int b = 0; b < 64; b++) {
+                DISTANCE[a][b] = Math.max(
+                        Math.abs(Position.fileOf(a) - Position.fileOf(b)),
+                        Math.abs(Position.rankOf(a) - Position.rankOf(b))
+                );
+            }
+            for (int dir = 0; dir < 8; dir++) {
+                // every square on this ray shares the ray's line with a, and
+                // the squares between are those up to but not including it
+                long line = RAYS[dir][a] | RAYS[dir ^ 1][a] | (1L << a);
+                long ray = RAYS[dir][a];
+                while (ray != 0) {
+                    int b = Long.numberOfTrailingZeros(ray);
+                    ray &= ray - 1;
+                    LINE[a][b] = line;
+                    BETWEEN[a][b] = RAYS[dir][a] & ~RAYS[dir][b] & ~(1L << b);
+                }
+            }
+        }
+    }
+
+    private Attacks() {
+    }
+
+    /**
+     * @return the squares a knight on the square attacks
+     */
+    public static long knight(int square) {
+        return KNIGHT[square];
+    }
+
+    /**
+     * @return the squares a king on the square attacks
+     */
+    public static long king(int square) {
+        return KING[square];
+    }
+
+    /**
+     * @return the squares a pawn of the color on the square attacks
+     */
+    public static long pawn(int color, int square) {
+        return PAWN[color][square];
+    }
+
+    /**
+     * @return the squares a rook on the square attacks, given the occupancy
+     */
+    public static long rook(int square, long occupied) {
+        return Magics.rookAttacks(square, occupied);
+    }
+
+    /**
+     * @return the squares a bishop on the square attacks, given the occupancy
+     */
+    public static long bishop(int square, long occupied) {
+        return Magics.bishopAttacks(square, occupied);
+    }
+
+    /**
+     * @return the squares a queen on the square attacks, given the occupancy
+     */
+    public static long queen(int square, long occupied) {
+        return Magics.queenAttacks(square, occupied);
+    }
+
+    /**
+     * @param direction one of the direction constants
+     * @param square    the starting square
+     * @return the squares from the square to the edge of the board in the
+     *         direction, not including the square itself
+     */
+    public static long ray(int direction, int square) {
+        return RAYS[direction][square];
+    }
+
+    /**
+     * @return the squares strictly between two squares on a shared rank, file
+     *         or diagonal, or 0 if they don't share one
+     */
+    public static long between(int a, int b) {
+        return BETWEEN[a][b];
+    }
+
+    /**
+     * @return every square on the full rank, file or diagonal through two
+     *         squares (edge to edge), or 0 if they don't share one
+     */
+    public static long line(int a, int b) {
+        return LINE[a][b];
+    }
+
+    /**
+     * @return whether three squares lie on one rank, file or diagonal
+     */
+    public static boolean aligned(int a, int b, int c) {
+        return (LINE[a][b] & (1L << c)) != 0;
+    }
+
+    /**
+     * @return the number of king moves between two squares on an empty board
+     */
+    public static int distance(int a, int b) {
+        return DISTANCE[a][b];
+    }
+
+    private static long offsetAttacks(int square, int[][] offsets) {
+        long attacks = 0L;
+        for (int[] offset : offsets) {
+            int f = Position.fileOf(square) + offset[0];
+            int r = Position.rankOf(square) + offset[1];
+            if (f >= 0 && f < 8 && r >= 0 && r < 8) {
+                attacks |= 1L << Position.square(f, r);
+            }
+        }
+        return attacks;
+    }
+
+    private static long walkRay(int square, int direction) {
+        long ray = 0L;
+        int f = Position.fileOf(square) + DIRECTIONS[direction][0];
+        int r = Position.rankOf(square) + DIRECTIONS[direction][1];
+        while (f >= 0 && f < 8 && r >= 0 && r < 8) {
+            ray |= 1L << Position.square(f, r);
+            f += DIRECTIONS[direction][0];
+            r += DIRECTIONS[direction][1];
+        }
+        return ray;
+    }
+}
@@ -0,0 +1,96 @@
+package org.cis1200.bitboard;
+
+/**
+ * Helpers for moves packed into a single int, so move lists can be plain
+ * {@code int[]} arrays.
+ *
+ * Layout (low to high bits): from square (6 bits), to square (6 bits),
+ * promotion piece type (3 bits, 0 when the move is not a promotion) and then
+ * one bit each for the capture, en passant, castling and double pawn push
+ * flags.
+ */
+public final class Move {
+    public static final int NONE = 0;
+
+    public static final int CAPTURE = 1 << 15;
+    public static final int EN_PASSANT = 1 << 16;
+    public static final int CASTLING = 1 << 17;
+    public static final int DOUBLE_PUSH = 1 << 18;
+
+    private Move() {
+    }
+
+    /**
+     * @return a quiet move from one square to another
+     */
+    public static int of(int from, int to) {
+        return from | to << 6;
+    }
+
+    /**
+     * @param from      the square the piece moves from
+     * @param to        the square the piece moves to
+     * @param promotion the promotion piece type, or 0 for none
+     * @param flags     any of the flag constants combined with |
+     * @return the packed move
+     */
+    public static int of(int from, int to, int promotion, int flags) {
+        return from | to << 6 | promotion << 12 | flags;
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return move >>> 6 & 63;
+    }
+
+    /**
+     * @return the promotion piece type, or 0 if the move is not a promotion
+     */
+    public static int promotion(int move) {
+        return move >>> 12 & 7;
+    }
+
+    public static boolean isPromotion(int move) {
+        return promotion(move) != 0;
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    public static boolean isEnPassant(int move) {
+        return (move & EN_PASSANT) != 0;
+    }
+
+    public static boolean isCastling(int move) {
+        return (move & CASTLING) != 0;
+    }
+
+    public static boolean isDoublePush(int move) {
+        return (move & DOUBLE_PUSH) != 0;
+    }
+
+    /**
+     * @return the move in long algebraic notation, e.g. "e2e4" or "e7e8q"
+     */
+    public static String toString(int move) {
+        if (move == NONE) {
+            return "0000";
+        }
+        StringBuilder sb = new StringBuilder(5);
+        appendSquare(sb, from(move));
+        appendSquare(sb, to(move));
+        if (isPromotion(move)) {
+            sb.append("pnbrqk".charAt(promotion(move)));
+        }
+        return sb.toString();
+    }
+
+    private static void appendSquare(StringBuilder sb, int square) {
+        sb.append((char) ('a' + Position.fileOf(square)));
+        sb.append((char) ('1' + Position.rankOf(square)));
+    }
+}
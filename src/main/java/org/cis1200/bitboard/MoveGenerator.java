@@ -0,0 +1,277 @@
+package org.cis1200.bitboard;
+
+/**
+ * Strictly legal move generation.
+ *
+ * Instead of generating pseudo-legal moves and trying each one, the generator
+ * works out once per position which enemy pieces give check, which of our
+ * pieces are pinned to the king and which squares the king may not step to.
+ * Every other piece is then limited to the squares that block or capture the
+ * checker, and a pinned piece to the line through it and its king, so only
+ * legal moves are ever emitted.
+ */
+public final class MoveGenerator {
+    private static final long PROMOTION_RANKS = 0xFF000000000000FFL;
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Appends every legal move of the side to move to a list.
+     *
+     * @param position the position to generate moves for
+     * @param list     the list to append to
+     */
+    public static void generateLegalMoves(Position position, MoveList list) {
+        generateLegalMoves(position, list, -1L);
+    }
+
+    /**
+     * Appends the legal moves of the side to move whose origin square is in
+     * a mask, e.g. a single bit to get the moves of one piece.
+     *
+     * @param position the position to generate moves for
+     * @param list     the list to append to
+     * @param fromMask the origin squares to generate moves for
+     */
+    public static void generateLegalMoves(Position position, MoveList list, long fromMask) {
+        generate(position, list, fromMask, false, false);
+    }
+
+    /**
+     * Checks whether the side to move has any legal move, stopping at the
+     * first piece that has one. The king is tried first, since it is the
+     * piece most likely to have a move in the positions where this matters.
+     *
+     * @param position the position to check
+     * @param scratch  an empty list to generate into; its contents afterwards
+     *                 are unspecified
+     * @return whether there is at least one legal move
+     */
+    public static boolean hasLegalMove(Position position, MoveList scratch) {
+        generate(position, scratch, -1L, false, true);
+        return !scratch.isEmpty();
+    }
+
+    /**
+     * Appends the legal captures and promotions of the side to move, or every
+     * legal move when it is in check (where any quiet evasion may be the only
+     * way out). Quiet moves are never generated otherwise, which keeps this
+     * cheap enough for quiescence search.
+     *
+     * @param position the position to generate moves for
+     * @param list     the list to append to
+     */
+    public static void generateCaptures(Position position, MoveList list) {
+        generate(position, list, -1L, true, false);
+    }
+
+    private static void generate(
+            Position position, MoveList list, long fromMask, boolean tactical, boolean firstOnly
+    ) {
+        int us = position.getSideToMove();
+        int them = 1 - us;
+        long own = position.getOccupancy(us);
+        long occupied = position.getOccupied();
+        int king = position.getKingSquare(us);
+
+        // without a king nothing can be left in check
+        if (king == Position.NO_SQUARE) {
+            long enemy = position.getOccupancy(them);
+            int enPassant = position.getEnPassantSquare();
+            long pieces = own & fromMask;
+            while (pieces != 0) {
+                int from = Long.numberOfTrailingZeros(pieces);
+                pieces &= pieces - 1;
+                long targets = position.getPseudoLegalTargets(from);
+                if (tactical) {
+                    boolean isPawn = Position.typeOf(position.getPieceAt(from)) == Position.PAWN;
+                    long mask = enemy;
+                    if (isPawn) {
+                        mask |= PROMOTION_RANKS;
+                        if (enPassant != Position.NO_SQUARE) {
+                            mask |= 1L << enPassant;
+                        }
+                    }
+                    targets &= mask;
+                }
+                addMoves(position, list, from, targets);
+                if (firstOnly && !list.isEmpty()) {
+                    return;
+                }
+            }
+            return;
+        }
+
+        long kingBit = 1L << king;
+        long checkers = position.attackersTo(king, occupied) & position.getOccupancy(them);
+
+        // quiet moves are only skipped when not in check; pawns may also move
+        // to the last rank to promote
+        long targetMask = -1L;
+        long pawnTargetMask = -1L;
+        if (tactical && checkers == 0) {
+            targetMask = position.getOccupancy(them);
+            pawnTargetMask = targetMask | PROMOTION_RANKS;
+        }
+
+        // the king can go anywhere the enemy doesn't attack once it has stepped
+        // off its square (so it can't retreat along a checking ray)
+        if ((fromMask & kingBit) != 0) {
+            long danger = position.getAttackedSquares(them, occupied ^ kingBit);
+            long targets = Attacks.king(king) & ~own & ~danger & targetMask;
+            if (checkers == 0 && !tactical) {
+                targets |= castlingTargets(position, us, king, danger);
+            }
+            addMoves(position, list, king, targets);
+        }
+
+        // in double check only the king can move
+        if (Long.bitCount(checkers) > 1 || (firstOnly && !list.isEmpty())) {
+            return;
+        }
+
+        // in check, other pieces must capture the checker or block its ray
+        long checkMask = -1L;
+        if (checkers != 0) {
+            checkMask = checkers | Attacks.between(king, Long.numberOfTrailingZeros(checkers));
+        }
+
+        long theirQueens = position.getPieces(them, Position.QUEEN);
+        long theirRooks = position.getPieces(them, Position.ROOK) | theirQueens;
+        long theirBishops = position.getPieces(them, Position.BISHOP) | theirQueens;
+        long pinned = pinnedPieces(position, king, own, occupied, theirRooks, theirBishops);
+
+        int enPassant = position.getEnPassantSquare();
+        long enPassantBit = enPassant == Position.NO_SQUARE ? 0L : 1L << enPassant;
+
+        long pieces = own & ~kingBit & fromMask;
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            long targets = position.getPseudoLegalTargets(from);
+            boolean isPawn = Position.typeOf(position.getPieceAt(from)) == Position.PAWN;
+
+            // en passant is checked separately since it removes two pieces from
+            // the capturing pawn's rank
+            if (isPawn && (targets & enPassantBit) != 0) {
+                targets &= ~enPassantBit;
+                if (isLegalEnPassant(
+                        from, enPassant, us, king, occupied, checkMask, theirRooks, theirBishops
+                )) {
+                    addMoves(position, list, from, enPassantBit);
+                }
+            }
+
+            targets &= checkMask & (isPawn ? pawnTargetMask : targetMask);
+            if ((pinned & (1L << from)) != 0) {
+                targets &= Attacks.line(king, from);
+            }
+            addMoves(position, list, from, targets);
+            if (firstOnly && !list.isEmpty()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Finds our pieces that are the only piece between our king and an enemy
+     * slider that would otherwise attack it.
+     */
+    private static long pinnedPieces(
+            Position position, int king, long own, long occupied, long theirRooks,
+            long theirBishops
+    ) {
+        // sliders that would see the king if only enemy pieces blocked
+        long enemy = occupied & ~own;
+        long snipers = (Attacks.rook(king, enemy) & theirRooks)
+                | (Attacks.bishop(king, enemy) & theirBishops);
+
+        long pinned = 0L;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Attacks.between(king, sniper) & occupied;
+            if (blockers != 0 && (blockers & (blockers - 1)) == 0 && (blockers & own) != 0) {
+                pinned |= blockers;
+            }
+        }
+        return pinned;
+    }
+
+    /**
+     * An en passant capture is legal if it deals with any check (by taking the
+     * checking pawn or blocking on the target square) and no slider sees the
+     * king once both pawns have left their squares.
+     */
+    private static boolean isLegalEnPassant(
+            int from, int target, int us, int king, long occupied, long checkMask,
+            long theirRooks, long theirBishops
+    ) {
+        int capturedSquare = us == Position.WHITE ? target - 8 : target + 8;
+        if ((checkMask & ((1L << target) | (1L << capturedSquare))) == 0) {
+            return false;
+        }
+        long after = (occupied & ~(1L << from) & ~(1L << capturedSquare)) | (1L << target);
+        return (Attacks.rook(king, after) & theirRooks) == 0
+                && (Attacks.bishop(king, after) & theirBishops) == 0;
+    }
+
+    private static long castlingTargets(Position position, int us, int king, long danger) {
+        int homeRank = us == Position.WHITE ? 0 : 56;
+        int rights = position.getCastlingRights();
+        if (king != homeRank + 4 || rights == 0) {
+            return 0L;
+        }
+        int kingside = us == Position.WHITE ? Position.WHITE_KINGSIDE : Position.BLACK_KINGSIDE;
+        int queenside = us == Position.WHITE ? Position.WHITE_QUEENSIDE
+                : Position.BLACK_QUEENSIDE;
+        long rooks = position.getPieces(us, Position.ROOK);
+        long occupied = position.getOccupied();
+
+        long targets = 0L;
+        if ((rights & kingside) != 0 && (rooks & (1L << (homeRank + 7))) != 0
+                && (occupied & (3L << (homeRank + 5))) == 0
+                && (danger & (3L << (homeRank + 5))) == 0) {
+            targets |= 1L << (homeRank + 6);
+        }
+        if ((rights & queenside) != 0 && (rooks & (1L << homeRank)) != 0
+                && (occupied & (7L << (homeRank + 1))) == 0
+                && (danger & (3L << (homeRank + 2))) == 0) {
+            targets |= 1L << (homeRank + 2);
+        }
+        return targets;
+    }
+
+    /**
+     * Appends a move to each target square of the piece on {@code from},
+     * setting the capture, en passant, double push and castling flags and
+     * expanding promotions (queen first).
+     */
+    static void addMoves(Position position, MoveList list, int from, long targets) {
+        int type = Position.typeOf(position.getPieceAt(from));
+        long enemy = position.getOccupancy(1 - position.getSideToMove());
+        int enPassant = position.getEnPassantSquare();
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            int flags = (enemy & (1L << to)) != 0 ? Move.CAPTURE : 0;
+            if (type == Position.PAWN) {
+                if (to == enPassant) {
+                    flags |= Move.CAPTURE | Move.EN_PASSANT;
+                } else if (Math.abs(to - from) == 16) {
+                    flags |= Move.DOUBLE_PUSH;
+                }
+                if (Position.rankOf(to) == 7 || Position.rankOf(to) == 0) {
+                    for (int promotion = Position.QUEEN; promotion >= Position.KNIGHT; promotion--) {
+                        list.add(Move.of(from, to, promotion, flags));
+                    }
+                    continue;
+                }
+            } else if (type == Position.KING && Math.abs(to - from) == 2) {
+                flags |= Move.CASTLING;
+            }
+            list.add(Move.of(from, to, 0, flags));
+        }
+    }
+}
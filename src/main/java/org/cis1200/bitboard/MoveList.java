@@ -0,0 +1,77 @@
+package org.cis1200.bitboard;
+
+/**
+ * A fixed-capacity list of packed moves. Generators append to it and callers
+ * clear and reuse the same list, so generating moves does not allocate.
+ */
+public class MoveList {
+    // No legal chess position has more than 218 moves
+    public static final int CAPACITY = 256;
+
+    private final int[] moves = new int[CAPACITY];
+    private int size;
+
+    /**
+     * Appends a move to the end of the list.
+     */
+    public void add(int move) {
+        moves[size++] = move;
+    }
+
+    /**
+     * @return the move at an index
+     */
+    public int get(int index) {
+        return moves[index];
+    }
+
+    /**
+     * Replaces the move at an index.
+     */
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Empties the list without releasing its storage.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Drops every move from an index onwards.
+     */
+    public void truncate(int newSize) {
+        size = newSize;
+    }
+
+    /**
+     * Swaps the moves at two indices.
+     */
+    public void swap(int i, int j) {
+        int tmp = moves[i];
+        moves[i] = moves[j];
+        moves[j] = tmp;
+    }
+
+    /**
+     * @return whether the list contains the given packed move
+     */
+    public boolean contains(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
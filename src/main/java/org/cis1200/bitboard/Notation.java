@@ -0,0 +1,299 @@
+package org.cis1200.bitboard;
+
+/**
+ * Reading and writing moves as text: standard algebraic notation (SAN, e.g.
+ * "Nbd7", "exd6", "e8=Q+", "O-O") and long algebraic notation (e.g. "g1f3",
+ * "e7e8q", also accepted with a piece letter, '-' or 'x' as in "Ng1-f3").
+ *
+ * Parsing reads the text once, character by character, into the parts a move
+ * can name (piece, origin file and rank, target square, promotion) and then
+ * matches them against a single pass over the legal moves. Annotations such
+ * as '+', '#', '!' and '?' at the end are ignored. A capture mark ('x' or
+ * ':') or separator ('-') may appear once, just before the target square,
+ * and must agree with whether the move captures. SAN must name the piece a
+ * pawn promotes to and write castling as "O-O" or "O-O-O".
+ *
+ * Writing names the origin file, rank or square of a piece only when another
+ * piece of the same type could make the same move, and marks check and mate.
+ * {@link Move#toString(int)} gives the long form.
+ */
+public final class Notation {
+    /** The origin file is needed to tell the move apart. */
+    public static final int DISAMBIGUATE_FILE = 1;
+    /** The origin rank is needed to tell the move apart. */
+    public static final int DISAMBIGUATE_RANK = 2;
+
+    private static final String PIECE_LETTERS = "PNBRQK";
+
+    private Notation() {
+    }
+
+    /**
+     * Finds the legal move of the side to move that a text names.
+     *
+     * @param position the position the move is played in
+     * @param text     the move in SAN or long algebraic notation
+     * @param scratch  a list to generate legal moves into; it is cleared first
+     * @return the move, or {@link Move#NONE} if the text is malformed, names
+     *         no legal move or could be more than one
+     */
+    public static int parse(Position position, CharSequence text, MoveList scratch) {
+        int start = 0;
+        int end = text.length();
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && isSuffix(text.charAt(end - 1))) {
+            end--;
+        }
+        if (start == end) {
+            return Move.NONE;
+        }
+
+        scratch.clear();
+        position.generateLegalMoves(scratch);
+
+        char first = text.charAt(start);
+        if (first == 'O' || first == '0') {
+            return parseCastling(text, start, end, scratch);
+        }
+
+        int type = -1;
+        int i = start;
+        int letter = PIECE_LETTERS.indexOf(first);
+        if (letter > 0) {
+            type = letter;
+            i++;
+        }
+
+        // up to two squares, either of which may be just a file or a rank
+        // (only the first one may be partial)
+        int[] files = { -1, -1 };
+        int[] ranks = { -1, -1 };
+        int squares = 0;
+        int promotion = 0;
+        // one capture mark or separator, which must come just before the target
+        char mark = 0;
+        int squaresBeforeMark = -1;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (promotion != 0) {
+                // nothing follows the promotion piece
+                return Move.NONE;
+            }
+            if (c >= 'a' && c <= 'h' && !(c == 'b' && squares == 2 && ranks[1] >= 0)) {
+                if (squares == 2) {
+                    return Move.NONE;
+                }
+                files[squares++] = c - 'a';
+            } else if (c >= '1' && c <= '8') {
+                if (squares > 0 && ranks[squares - 1] < 0) {
+                    ranks[squares - 1] = c - '1';
+                } else if (squares < 2) {
+                    ranks[squares++] = c - '1';
+                } else {
+                    return Move.NONE;
+                }
+            } else if (c == 'x' || c == ':' || c == '-') {
+                if (mark != 0 || (squares == 0 && type < 0)) {
+                    return Move.NONE;
+                }
+                mark = c;
+                squaresBeforeMark = squares;
+            } else if (c == '=') {
+                if (i + 1 >= end || squares == 0 || ranks[squares - 1] < 0
+                        || text.charAt(i + 1) == '=') {
+                    return Move.NONE;
+                }
+            } else if (squares > 0 && ranks[squares - 1] >= 0) {
+                promotion = PIECE_LETTERS.indexOf(Character.toUpperCase(c));
+                if (promotion < Position.KNIGHT || promotion > Position.QUEEN) {
+                    return Move.NONE;
+                }
+            } else {
+                return Move.NONE;
+            }
+        }
+        if (squares == 0 || files[squares - 1] < 0 || ranks[squares - 1] < 0
+                || (mark != 0 && squaresBeforeMark != squares - 1)) {
+            return Move.NONE;
+        }
+        int to = Position.square(files[squares - 1], ranks[squares - 1]);
+        int fromFile = squares == 2 ? files[0] : -1;
+        int fromRank = squares == 2 ? ranks[0] : -1;
+        // without a piece letter a full origin square is long notation, which
+        // doesn't name the piece (so castling may be written as the king's
+        // move); otherwise it's a pawn move
+        boolean longForm = type < 0 && fromFile >= 0 && fromRank >= 0;
+        boolean named = type > 0;
+        if (type < 0 && !longForm) {
+            type = Position.PAWN;
+        }
+
+        int found = Move.NONE;
+        for (int m = 0; m < scratch.size(); m++) {
+            int move = scratch.get(m);
+            int from = Move.from(move);
+            if (Move.to(move) != to
+                    || (fromFile >= 0 && Position.fileOf(from) != fromFile)
+                    || (fromRank >= 0 && Position.rankOf(from) != fromRank)
+                    || (type >= 0 && Position.typeOf(position.getPieceAt(from)) != type)
+                    || (named && Move.isCastling(move))
+                    || (mark != 0 && Move.isCapture(move) != (mark != '-'))) {
+                continue;
+            }
+            // in long notation a promotion without a piece is to a queen
+            int wanted = promotion == 0 && longForm && Move.isPromotion(move) ? Position.QUEEN
+                    : promotion;
+            if ((Move.isPromotion(move) ? Move.promotion(move) : 0) != wanted) {
+                continue;
+            }
+            if (found != Move.NONE) {
+                return Move.NONE;
+            }
+            found = move;
+        }
+        return found;
+    }
+
+    private static int parseCastling(CharSequence text, int start, int end, MoveList legal) {
+        int length = end - start;
+        if (length != 3 && length != 5) {
+            return Move.NONE;
+        }
+        char zero = text.charAt(start);
+        for (int i = start; i < end; i++) {
+            char expected = (i - start) % 2 == 0 ? zero : '-';
+            if (text.charAt(i) != expected) {
+                return Move.NONE;
+            }
+        }
+        boolean kingside = length == 3;
+        for (int m = 0; m < legal.size(); m++) {
+            int move = legal.get(m);
+            if (Move.isCastling(move) && (Move.to(move) > Move.from(move)) == kingside) {
+                return move;
+            }
+        }
+        return Move.NONE;
+    }
+
+    private static boolean isSuffix(char c) {
+        return c == '+' || c == '#' || c == '!' || c == '?' || Character.isWhitespace(c);
+    }
+
+    /**
+     * Writes a legal move in SAN.
+     *
+     * @param position the position the move is played in; it is left as it was
+     * @param move     the move
+     * @param scratch  a list to generate legal moves into
+     * @return the move in SAN, with '+' or '#' if it gives check or mate
+     */
+    public static String toSan(Position position, int move, MoveList scratch) {
+        int type = Position.typeOf(position.getPieceAt(Move.from(move)));
+        int disambiguation = disambiguation(position, move, scratch);
+        boolean check = position.givesCheck(move);
+        boolean mate = false;
+        if (check) {
+            position.makeMove(move);
+            mate = !position.hasLegalMoves();
+            position.unmakeMove();
+        }
+        StringBuilder sb = new StringBuilder(8);
+        appendSan(sb, type, move, disambiguation, check, mate);
+        return sb.toString();
+    }
+
+    /**
+     * Works out what a piece move's SAN must add to tell it apart from the
+     * same move by another piece of the same type.
+     *
+     * @param position the position the move is played in
+     * @param move     the move
+     * @param scratch  a list to generate legal moves into; it is cleared first
+     * @return any of {@link #DISAMBIGUATE_FILE} and {@link #DISAMBIGUATE_RANK}
+     *         combined with |, or 0
+     */
+    public static int disambiguation(Position position, int move, MoveList scratch) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int piece = position.getPieceAt(from);
+        int type = Position.typeOf(piece);
+        if (type == Position.PAWN || type == Position.KING) {
+            return 0;
+        }
+        long others = position.getPieces(Position.colorOf(piece), type) & ~(1L << from);
+        if (others == 0) {
+            return 0;
+        }
+        scratch.clear();
+        MoveGenerator.generateLegalMoves(position, scratch, others);
+        boolean ambiguous = false;
+        boolean sameFile = false;
+        boolean sameRank = false;
+        for (int m = 0; m < scratch.size(); m++) {
+            int other = Move.from(scratch.get(m));
+            if (Move.to(scratch.get(m)) == to) {
+                ambiguous = true;
+                sameFile |= Position.fileOf(other) == Position.fileOf(from);
+                sameRank |= Position.rankOf(other) == Position.rankOf(from);
+            }
+        }
+        if (!ambiguous) {
+            return 0;
+        }
+        if (!sameFile) {
+            return DISAMBIGUATE_FILE;
+        }
+        return sameRank ? DISAMBIGUATE_FILE | DISAMBIGUATE_RANK : DISAMBIGUATE_RANK;
+    }
+
+    /**
+     * Writes a move in SAN from what is known about it, for callers that
+     * recorded these when the move was played.
+     *
+     * @param sb             where to write
+     * @param type           the type of the piece that moved
+     * @param move           the move
+     * @param disambiguation from {@link #disambiguation(Position, int, MoveList)}
+     * @param check          whether the move gives check
+     * @param mate           whether the move mates
+     */
+    public static void appendSan(
+            StringBuilder sb, int type, int move, int disambiguation, boolean check,
+            boolean mate
+    ) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        if (Move.isCastling(move)) {
+            sb.append(to > from ? "O-O" : "O-O-O");
+        } else {
+            if (type != Position.PAWN) {
+                sb.append(PIECE_LETTERS.charAt(type));
+                if ((disambiguation & DISAMBIGUATE_FILE) != 0) {
+                    sb.append((char) ('a' + Position.fileOf(from)));
+                }
+                if ((disambiguation & DISAMBIGUATE_RANK) != 0) {
+                    sb.append((char) ('1' + Position.rankOf(from)));
+                }
+            }
+            if (Move.isCapture(move)) {
+                if (type == Position.PAWN) {
+                    sb.append((char) ('a' + Position.fileOf(from)));
+                }
+                sb.append('x');
+            }
+            sb.append((char) ('a' + Position.fileOf(to)))
+                    .append((char) ('1' + Position.rankOf(to)));
+            if (Move.isPromotion(move)) {
+                sb.append('=').append(PIECE_LETTERS.charAt(Move.promotion(move)));
+            }
+        }
+        if (mate) {
+            sb.append('#');
+        } else if (check) {
+            sb.append('+');
+        }
+    }
+}
@@ -0,0 +1,958 @@
+package org.cis1200.bitboard;
+
+import java.util.Arrays;
+
+/**
+ * Bitboard representation of a chess position.
+ *
+ * Squares are numbered 0-63 starting from a1 and moving along the ranks, so a
+ * square is {@code rank * 8 + file}. Each of the 12 piece kinds (6 types in 2
+ * colors) has its own 64-bit occupancy mask, and a mailbox array mirrors the
+ * masks so that "what is on this square" is a single lookup. All of the game
+ * state (side to move, castling rights, en passant square and clocks) is kept
+ * in primitive fields so positions can be copied without allocating.
+ */
+public class Position {
+    // Colors
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    // Piece types (same order as Piece.Type)
+    public static final int PAWN = 0;
+    public static final int KNIGHT = 1;
+    public static final int BISHOP = 2;
+    public static final int ROOK = 3;
+    public static final int QUEEN = 4;
+    public static final int KING = 5;
+
+    // Mailbox / square sentinels
+    public static final int NO_PIECE = -1;
+    public static final int NO_SQUARE = -1;
+
+    // Castling rights bits
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    public static final int ALL_CASTLING = 15;
+
+    private static final long RANK_1 = 0xFFL;
+    private static final long RANK_8 = RANK_1 << 56;
+
+    // Rights that survive a move touching a given square (from or to)
+    private static final int[] CASTLING_MASK = new int[64];
+
+    static {
+        for (int sq = 0; sq < 64; sq++) {
+            CASTLING_MASK[sq] = ALL_CASTLING;
+        }
+        CASTLING_MASK[0] &= ~WHITE_QUEENSIDE;
+        CASTLING_MASK[7] &= ~WHITE_KINGSIDE;
+        CASTLING_MASK[4] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASK[56] &= ~BLACK_QUEENSIDE;
+        CASTLING_MASK[63] &= ~BLACK_KINGSIDE;
+        CASTLING_MASK[60] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+    }
+
+    // index = color * 6 + type
+    private final long[] pieces = new long[12];
+    private final long[] colors = new long[2];
+    private long occupied;
+    private final int[] mailbox = new int[64];
+
+    private int sideToMove;
+    private int castlingRights;
+    private int enPassantSquare;
+    private int halfMoveClock;
+    private int fullMoveNumber;
+
+    // Zobrist key, kept up to date by every change to the position
+    private long hash;
+
+    // Sums of PieceSquareTables values for the pieces on the board, from
+    // white's point of view, kept up to date the same way
+    private int midgameScore;
+    private int endgameScore;
+    private int phase;
+
+    // One packed record per move made, see makeMove for the layout, and the
+    // hash of the position before each of those moves
+    private long[] undoStack = new long[256];
+    private long[] hashStack = new long[256];
+    private int undoCount;
+
+    // Reused by the per-piece and any-move queries so they don't allocate
+    private final MoveList scratchMoves = new MoveList();
+
+    /**
+     * Creates an empty position with white to move and no castling rights.
+     */
+    public Position() {
+        Arrays.fill(mailbox, NO_PIECE);
+        this.sideToMove = WHITE;
+        this.castlingRights = 0;
+        this.enPassantSquare = NO_SQUARE;
+        this.halfMoveClock = 0;
+        this.fullMoveNumber = 1;
+        this.hash = Zobrist.castling(0);
+    }
+
+    /**
+     * Creates a copy of another position.
+     */
+    public Position(Position other) {
+        copyFrom(other);
+    }
+
+    /**
+     * Overwrites this position with the contents of another one without
+     * allocating.
+     *
+     * @param other the position to copy
+     */
+    public void copyFrom(Position other) {
+        System.arraycopy(other.pieces, 0, this.pieces, 0, 12);
+        System.arraycopy(other.colors, 0, this.colors, 0, 2);
+        System.arraycopy(other.mailbox, 0, this.mailbox, 0, 64);
+        this.occupied = other.occupied;
+        this.sideToMove = other.sideToMove;
+        this.castlingRights = other.castlingRights;
+        this.enPassantSquare = other.enPassantSquare;
+        this.halfMoveClock = other.halfMoveClock;
+        this.fullMoveNumber = other.fullMoveNumber;
+        this.hash = other.hash;
+        this.midgameScore = other.midgameScore;
+        this.endgameScore = other.endgameScore;
+        this.phase = other.phase;
+        if (this.undoStack.length < other.undoCount) {
+            this.undoStack = new long[other.undoStack.length];
+            this.hashStack = new long[other.hashStack.length];
+        }
+        System.arraycopy(other.undoStack, 0, this.undoStack, 0, other.undoCount);
+        System.arraycopy(other.hashStack, 0, this.hashStack, 0, other.undoCount);
+        this.undoCount = other.undoCount;
+    }
+
+    /**
+     * Takes an immutable copy of this position, with the history since the
+     * last capture or pawn move.
+     *
+     * @return the snapshot
+     */
+    public PositionSnapshot snapshot() {
+        int depth = Math.min(halfMoveClock, undoCount);
+        return new PositionSnapshot(
+                pieces.clone(), sideToMove, castlingRights, enPassantSquare, halfMoveClock,
+                fullMoveNumber, hash, Arrays.copyOfRange(undoStack, undoCount - depth, undoCount),
+                Arrays.copyOfRange(hashStack, undoCount - depth, undoCount)
+        );
+    }
+
+    /**
+     * Overwrites this position with the contents of a snapshot. The moves the
+     * snapshot kept can be taken back.
+     *
+     * @param snapshot the snapshot to restore
+     */
+    public void copyFrom(PositionSnapshot snapshot) {
+        clear();
+        for (int piece = 0; piece < 12; piece++) {
+            long bits = snapshot.getPieces(colorOf(piece), typeOf(piece));
+            while (bits != 0) {
+                putPiece(Long.numberOfTrailingZeros(bits), colorOf(piece), typeOf(piece));
+                bits &= bits - 1;
+            }
+        }
+        setSideToMove(snapshot.getSideToMove());
+        setCastlingRights(snapshot.getCastlingRights());
+        setEnPassantSquare(snapshot.getEnPassantSquare());
+        this.halfMoveClock = snapshot.getHalfMoveClock();
+        this.fullMoveNumber = snapshot.getFullMoveNumber();
+
+        int depth = snapshot.getUndoDepth();
+        if (undoStack.length <= depth) {
+            undoStack = Arrays.copyOf(undoStack, depth * 2);
+            hashStack = Arrays.copyOf(hashStack, depth * 2);
+        }
+        for (int i = 0; i < depth; i++) {
+            undoStack[i] = snapshot.getUndoRecord(i);
+            hashStack[i] = snapshot.getUndoHash(i);
+        }
+        this.undoCount = depth;
+    }
+
+    /**
+     * Empties this position without allocating, leaving it as a new one is:
+     * white to move, no castling rights and no history.
+     */
+    public void clear() {
+        Arrays.fill(pieces, 0L);
+        Arrays.fill(colors, 0L);
+        Arrays.fill(mailbox, NO_PIECE);
+        this.occupied = 0L;
+        this.sideToMove = WHITE;
+        this.castlingRights = 0;
+        this.enPassantSquare = NO_SQUARE;
+        this.halfMoveClock = 0;
+        this.fullMoveNumber = 1;
+        this.hash = Zobrist.castling(0);
+        this.midgameScore = 0;
+        this.endgameScore = 0;
+        this.phase = 0;
+        this.undoCount = 0;
+    }
+
+    /*----------------------------------
+    --- Square / piece helpers ---------
+    ----------------------------------*/
+
+    /**
+     * @return the square index for a file (0-7) and rank (0-7)
+     */
+    public static int square(int file, int rank) {
+        return rank * 8 + file;
+    }
+
+    public static int fileOf(int square) {
+        return square & 7;
+    }
+
+    public static int rankOf(int square) {
+        return square >>> 3;
+    }
+
+    /**
+     * @return the piece code used by the mailbox for a color and type
+     */
+    public static int pieceCode(int color, int type) {
+        return color * 6 + type;
+    }
+
+    public static int colorOf(int piece) {
+        return piece < 6 ? WHITE : BLACK;
+    }
+
+    public static int typeOf(int piece) {
+        return piece < 6 ? piece : piece - 6;
+    }
+
+    /*----------------------------------
+    --- Board manipulation -------------
+    ----------------------------------*/
+
+    /**
+     * Places a piece on a square, replacing whatever was there.
+     */
+    public void putPiece(int square, int color, int type) {
+        if (mailbox[square] != NO_PIECE) {
+            removePiece(square);
+        }
+        int piece = pieceCode(color, type);
+        long bit = 1L << square;
+        pieces[piece] |= bit;
+        colors[color] |= bit;
+        occupied |= bit;
+        mailbox[square] = piece;
+        hash ^= Zobrist.piece(piece, square);
+        midgameScore += PieceSquareTables.midgame(piece, square);
+        endgameScore += PieceSquareTables.endgame(piece, square);
+        phase += PieceSquareTables.phase(piece);
+    }
+
+    /**
+     * Removes the piece on a square, if any.
+     */
+    public void removePiece(int square) {
+        int piece = mailbox[square];
+        if (piece == NO_PIECE) {
+            return;
+        }
+        long bit = 1L << square;
+        pieces[piece] &= ~bit;
+        colors[colorOf(piece)] &= ~bit;
+        occupied &= ~bit;
+        mailbox[square] = NO_PIECE;
+        hash ^= Zobrist.piece(piece, square);
+        midgameScore -= PieceSquareTables.midgame(piece, square);
+        endgameScore -= PieceSquareTables.endgame(piece, square);
+        phase -= PieceSquareTables.phase(piece);
+    }
+
+    /**
+     * Moves whatever is on {@code from} to {@code to} without any rule checks,
+     * replacing anything already on {@code to}.
+     */
+    public void relocatePiece(int from, int to) {
+        int piece = mailbox[from];
+        if (piece == NO_PIECE) {
+            return;
+        }
+        removePiece(to);
+        removePiece(from);
+        putPiece(to, colorOf(piece), typeOf(piece));
+    }
+
+    /*----------------------------------
+    --- Getters / setters --------------
+    ----------------------------------*/
+
+    /**
+     * @return the piece code on a square, or NO_PIECE
+     */
+    public int getPieceAt(int square) {
+        return mailbox[square];
+    }
+
+    public long getPieces(int color, int type) {
+        return pieces[pieceCode(color, type)];
+    }
+
+    /**
+     * @return how many pieces of a color and type are on the board
+     */
+    public int getPieceCount(int color, int type) {
+        return Long.bitCount(pieces[pieceCode(color, type)]);
+    }
+
+    public long getOccupancy(int color) {
+        return colors[color];
+    }
+
+    public long getOccupied() {
+        return occupied;
+    }
+
+    public int getSideToMove() {
+        return sideToMove;
+    }
+
+    public void setSideToMove(int sideToMove) {
+        if (sideToMove != this.sideToMove) {
+            hash ^= Zobrist.blackToMove();
+        }
+        this.sideToMove = sideToMove;
+    }
+
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    public void setCastlingRights(int castlingRights) {
+        hash ^= Zobrist.castling(this.castlingRights) ^ Zobrist.castling(castlingRights);
+        this.castlingRights = castlingRights;
+    }
+
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    public void setEnPassantSquare(int enPassantSquare) {
+        hash ^= Zobrist.enPassant(this.enPassantSquare) ^ Zobrist.enPassant(enPassantSquare);
+        this.enPassantSquare = enPassantSquare;
+    }
+
+    public int getHalfMoveClock() {
+        return halfMoveClock;
+    }
+
+    public void setHalfMoveClock(int halfMoveClock) {
+        this.halfMoveClock = halfMoveClock;
+    }
+
+    public int getFullMoveNumber() {
+        return fullMoveNumber;
+    }
+
+    public void setFullMoveNumber(int fullMoveNumber) {
+        this.fullMoveNumber = fullMoveNumber;
+    }
+
+    /**
+     * @return the square of the king of the given color, or NO_SQUARE
+     */
+    public int getKingSquare(int color) {
+        long king = pieces[pieceCode(color, KING)];
+        return king == 0 ? NO_SQUARE : Long.numberOfTrailingZeros(king);
+    }
+
+    /**
+     * @return the Zobrist hash of the position, maintained incrementally
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Computes the Zobrist hash of the position from scratch. Always equal to
+     * {@link #getHash()}; useful for checking the incremental updates.
+     *
+     * @return the 64-bit hash key
+     */
+    public long computeHash() {
+        long hash = 0L;
+        long bb = occupied;
+        while (bb != 0) {
+            int square = Long.numberOfTrailingZeros(bb);
+            bb &= bb - 1;
+            hash ^= Zobrist.piece(mailbox[square], square);
+        }
+        hash ^= Zobrist.castling(castlingRights);
+        hash ^= Zobrist.enPassant(enPassantSquare);
+        if (sideToMove == BLACK) {
+            hash ^= Zobrist.blackToMove();
+        }
+        return hash;
+    }
+
+    /**
+     * @return the middlegame material and piece-square sum, from white's
+     *         point of view
+     * @see PieceSquareTables
+     */
+    public int getMidgameScore() {
+        return midgameScore;
+    }
+
+    /**
+     * @return the endgame material and piece-square sum, from white's point
+     *         of view
+     */
+    public int getEndgameScore() {
+        return endgameScore;
+    }
+
+    /**
+     * @return the game phase, from {@link PieceSquareTables#MAX_PHASE} or more
+     *         in the opening down to 0 with only kings and pawns
+     */
+    public int getPhase() {
+        return phase;
+    }
+
+    /*----------------------------------
+    --- Attacks ------------------------
+    ----------------------------------*/
+
+    /**
+     * Gets every square attacked by the pieces of a color.
+     *
+     * @param color the attacking color
+     * @return a mask of all attacked squares
+     */
+    public long getAttackedSquares(int color) {
+        return getAttackedSquares(color, occupied);
+    }
+
+    /**
+     * Gets every square attacked by the pieces of a color if the board had a
+     * different occupancy, e.g. with a king lifted off so that sliders see
+     * through its square.
+     *
+     * @param color    the attacking color
+     * @param occupied the occupancy that blocks sliders
+     * @return a mask of all attacked squares
+     */
+    public long getAttackedSquares(int color, long occupied) {
+        long attacks = 0L;
+        long bb = pieces[pieceCode(color, PAWN)];
+        while (bb != 0) {
+            attacks |= Attacks.pawn(color, Long.numberOfTrailingZeros(bb));
+            bb &= bb - 1;
+        }
+        bb = pieces[pieceCode(color, KNIGHT)];
+        while (bb != 0) {
+            attacks |= Attacks.knight(Long.numberOfTrailingZeros(bb));
+            bb &= bb - 1;
+        }
+        bb = pieces[pieceCode(color, BISHOP)] | pieces[pieceCode(color, QUEEN)];
+        while (bb != 0) {
+            attacks |= Attacks.bishop(Long.numberOfTrailingZeros(bb), occupied);
+            bb &= bb - 1;
+        }
+        bb = pieces[pieceCode(color, ROOK)] | pieces[pieceCode(color, QUEEN)];
+        while (bb != 0) {
+            attacks |= Attacks.rook(Long.numberOfTrailingZeros(bb), occupied);
+            bb &= bb - 1;
+        }
+        bb = pieces[pieceCode(color, KING)];
+        while (bb != 0) {
+            attacks |= Attacks.king(Long.numberOfTrailingZeros(bb));
+            bb &= bb - 1;
+        }
+        return attacks;
+    }
+
+    /**
+     * Gets the pieces of both colors that attack a square.
+     *
+     * @param square   the attacked square
+     * @param occupied the occupancy that blocks sliders
+     * @return a mask of the attackers
+     */
+    public long attackersTo(int square, long occupied) {
+        long queens = pieces[pieceCode(WHITE, QUEEN)] | pieces[pieceCode(BLACK, QUEEN)];
+        long rooks = pieces[pieceCode(WHITE, ROOK)] | pieces[pieceCode(BLACK, ROOK)] | queens;
+        long bishops = pieces[pieceCode(WHITE, BISHOP)] | pieces[pieceCode(BLACK, BISHOP)]
+                | queens;
+        return (Attacks.pawn(BLACK, square) & pieces[pieceCode(WHITE, PAWN)])
+                | (Attacks.pawn(WHITE, square) & pieces[pieceCode(BLACK, PAWN)])
+                | (Attacks.knight(square)
+                        & (pieces[pieceCode(WHITE, KNIGHT)] | pieces[pieceCode(BLACK, KNIGHT)]))
+                | (Attacks.king(square)
+                        & (pieces[pieceCode(WHITE, KING)] | pieces[pieceCode(BLACK, KING)]))
+                | (Attacks.rook(square, occupied) & rooks)
+                | (Attacks.bishop(square, occupied) & bishops);
+    }
+
+    /**
+     * Checks if a square is attacked by a color. Rather than generating the
+     * attacker's moves, this looks outward from the square: a pawn, knight or
+     * king of that color on one of the squares it could attack from, or a
+     * slider of that color as the first piece along one of its rays.
+     *
+     * @param square  the square to check
+     * @param byColor the attacking color
+     * @return true if any piece of that color attacks the square
+     */
+    public boolean isSquareAttacked(int square, int byColor) {
+        int base = pieceCode(byColor, PAWN);
+        if ((Attacks.pawn(1 - byColor, square) & pieces[base + PAWN]) != 0
+                || (Attacks.knight(square) & pieces[base + KNIGHT]) != 0
+                || (Attacks.king(square) & pieces[base + KING]) != 0) {
+            return true;
+        }
+        long queens = pieces[base + QUEEN];
+        long rooks = pieces[base + ROOK] | queens;
+        if (rooks != 0 && (Attacks.rook(square, occupied) & rooks) != 0) {
+            return true;
+        }
+        long bishops = pieces[base + BISHOP] | queens;
+        return bishops != 0 && (Attacks.bishop(square, occupied) & bishops) != 0;
+    }
+
+    /**
+     * Checks if the king of the given color is in check. A side without a king
+     * is never in check.
+     *
+     * @param color the color of the king to check
+     * @return true if the king is attacked
+     */
+    public boolean isInCheck(int color) {
+        int king = getKingSquare(color);
+        return king != NO_SQUARE && isSquareAttacked(king, 1 - color);
+    }
+
+    /*----------------------------------
+    --- Move generation ----------------
+    ----------------------------------*/
+
+    /**
+     * Gets the destinations of the piece on a square without checking whether
+     * they leave its own king in check. Castling is included only when the king
+     * does not start in, pass through or land on an attacked square.
+     *
+     * @param from the square of the piece
+     * @return a mask of destination squares
+     */
+    public long getPseudoLegalTargets(int from) {
+        int piece = mailbox[from];
+        if (piece == NO_PIECE) {
+            return 0L;
+        }
+        int color = colorOf(piece);
+        long own = colors[color];
+        long enemy = colors[1 - color];
+
+        switch (typeOf(piece)) {
+            case PAWN:
+                return pawnTargets(from, color, enemy);
+            case KNIGHT:
+                return Attacks.knight(from) & ~own;
+            case BISHOP:
+                return Attacks.bishop(from, occupied) & ~own;
+            case ROOK:
+                return Attacks.rook(from, occupied) & ~own;
+            case QUEEN:
+                return Attacks.queen(from, occupied) & ~own;
+            default:
+                return (Attacks.king(from) & ~own) | castlingTargets(from, color);
+        }
+    }
+
+    private long pawnTargets(int from, int color, long enemy) {
+        long bit = 1L << from;
+        long empty = ~occupied;
+        long targets;
+        if (color == WHITE) {
+            long single = (bit << 8) & empty;
+            targets = single | ((single & (RANK_1 << 16)) << 8) & empty;
+        } else {
+            long single = (bit >>> 8) & empty;
+            targets = single | ((single & (RANK_8 >>> 16)) >>> 8) & empty;
+        }
+        long captureMask = enemy;
+        if (enPassantSquare != NO_SQUARE) {
+            captureMask |= 1L << enPassantSquare;
+        }
+        return targets | (Attacks.pawn(color, from) & captureMask);
+    }
+
+    private long castlingTargets(int from, int color) {
+        int homeRank = color == WHITE ? 0 : 56;
+        if (from != homeRank + 4) {
+            return 0L;
+        }
+        int kingside = color == WHITE ? WHITE_KINGSIDE : BLACK_KINGSIDE;
+        int queenside = color == WHITE ? WHITE_QUEENSIDE : BLACK_QUEENSIDE;
+        if ((castlingRights & (kingside | queenside)) == 0) {
+            return 0L;
+        }
+
+        int them = 1 - color;
+        if (isSquareAttacked(from, them)) {
+            return 0L;
+        }
+
+        // the king may not pass through or land on an attacked square
+        long targets = 0L;
+        long rooks = pieces[pieceCode(color, ROOK)];
+        if ((castlingRights & kingside) != 0 && (rooks & (1L << (homeRank + 7))) != 0
+                && (occupied & (3L << (homeRank + 5))) == 0
+                && !isSquareAttacked(homeRank + 5, them)
+                && !isSquareAttacked(homeRank + 6, them)) {
+            targets |= 1L << (homeRank + 6);
+        }
+        if ((castlingRights & queenside) != 0 && (rooks & (1L << homeRank)) != 0
+                && (occupied & (7L << (homeRank + 1))) == 0
+                && !isSquareAttacked(homeRank + 3, them)
+                && !isSquareAttacked(homeRank + 2, them)) {
+            targets |= 1L << (homeRank + 2);
+        }
+        return targets;
+    }
+
+    /**
+     * Gets the legal destinations of the piece on a square. Only the side to
+     * move has legal moves.
+     *
+     * @param from the square of the piece
+     * @return a mask of destination squares
+     */
+    public long getLegalTargets(int from) {
+        int piece = mailbox[from];
+        if (piece == NO_PIECE || colorOf(piece) != sideToMove) {
+            return 0L;
+        }
+
+        scratchMoves.clear();
+        MoveGenerator.generateLegalMoves(this, scratchMoves, 1L << from);
+        long legal = 0L;
+        for (int i = 0; i < scratchMoves.size(); i++) {
+            legal |= 1L << Move.to(scratchMoves.get(i));
+        }
+        return legal;
+    }
+
+    /**
+     * Appends every pseudo-legal move of the side to move to a list, i.e. moves
+     * that may still leave the mover's king in check. Promotions are listed
+     * once per promotion piece, queen first.
+     *
+     * @param list the list to append to
+     */
+    public void generatePseudoLegalMoves(MoveList list) {
+        long own = colors[sideToMove];
+        while (own != 0) {
+            int from = Long.numberOfTrailingZeros(own);
+            own &= own - 1;
+            MoveGenerator.addMoves(this, list, from, getPseudoLegalTargets(from));
+        }
+    }
+
+    /**
+     * Appends every legal move of the side to move to a list.
+     *
+     * @param list the list to append to
+     * @see MoveGenerator
+     */
+    public void generateLegalMoves(MoveList list) {
+        MoveGenerator.generateLegalMoves(this, list);
+    }
+
+    /**
+     * @return whether the side to move has at least one legal move
+     */
+    public boolean hasLegalMoves() {
+        scratchMoves.clear();
+        return MoveGenerator.hasLegalMove(this, scratchMoves);
+    }
+
+    /**
+     * Checks whether a legal move of the side to move would put the enemy
+     * king in check, without making it. The check may be direct, from the
+     * moved (or promoted) piece, or discovered by a slider behind its origin
+     * square, the pawn taken en passant or, when castling, the rook.
+     *
+     * @param move the move, as generated
+     * @return whether the move gives check
+     */
+    public boolean givesCheck(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int us = colorOf(mailbox[from]);
+        int type = typeOf(mailbox[from]);
+        int king = getKingSquare(1 - us);
+        if (king == NO_SQUARE) {
+            return false;
+        }
+        if (type == PAWN && (rankOf(to) == 7 || rankOf(to) == 0)) {
+            type = Move.isPromotion(move) ? Move.promotion(move) : QUEEN;
+        }
+        long occupied = (this.occupied & ~(1L << from)) | (1L << to);
+        long kingBit = 1L << king;
+
+        long direct = switch (type) {
+            case PAWN -> Attacks.pawn(us, to);
+            case KNIGHT -> Attacks.knight(to);
+            case BISHOP -> Attacks.bishop(to, occupied);
+            case ROOK -> Attacks.rook(to, occupied);
+            case QUEEN -> Attacks.queen(to, occupied);
+            default -> 0L;
+        };
+        if ((direct & kingBit) != 0) {
+            return true;
+        }
+
+        // our other sliders, looking through the squares the move empties
+        long rooks = (pieces[pieceCode(us, ROOK)] | pieces[pieceCode(us, QUEEN)]) & ~(1L << from);
+        long bishops = (pieces[pieceCode(us, BISHOP)] | pieces[pieceCode(us, QUEEN)])
+                & ~(1L << from);
+        if (type == PAWN && to == enPassantSquare) {
+            occupied &= ~(1L << (us == WHITE ? to - 8 : to + 8));
+        } else if (type == KING && Math.abs(to - from) == 2) {
+            int rookFrom = to > from ? to + 1 : to - 2;
+            int rookTo = to > from ? to - 1 : to + 1;
+            occupied = (occupied & ~(1L << rookFrom)) | (1L << rookTo);
+            rooks = (rooks & ~(1L << rookFrom)) | (1L << rookTo);
+        }
+        return (Attacks.rook(king, occupied) & rooks) != 0
+                || (Attacks.bishop(king, occupied) & bishops) != 0;
+    }
+
+    /*----------------------------------
+    --- Making moves -------------------
+    ----------------------------------*/
+
+    /**
+     * Plays a packed move (see {@link Move}) without checking that it is legal.
+     *
+     * @param move the move to play
+     */
+    public void makeMove(int move) {
+        int promotion = Move.promotion(move);
+        makeMove(Move.from(move), Move.to(move), promotion == 0 ? QUEEN : promotion);
+    }
+
+    /**
+     * Plays a move without checking that it is legal. Handles captures,
+     * castling, en passant, promotion and all of the game state. The move can
+     * be taken back with {@link #unmakeMove()}.
+     *
+     * @param from      the square the piece moves from
+     * @param to        the square the piece moves to
+     * @param promotion the piece type a pawn promotes to on the last rank
+     */
+    public void makeMove(int from, int to, int promotion) {
+        int piece = mailbox[from];
+        int us = colorOf(piece);
+        int type = typeOf(piece);
+        boolean enPassant = type == PAWN && to == enPassantSquare;
+        int captured = enPassant ? pieceCode(1 - us, PAWN) : mailbox[to];
+        boolean promotes = type == PAWN && (rankOf(to) == 7 || rankOf(to) == 0);
+
+        // Undo record layout: from (6 bits), to (6), captured piece + 1 (4),
+        // promotion flag (1), en passant flag (1), castling rights (4),
+        // en passant square + 1 (7), halfmove clock (16)
+        if (undoCount == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, undoStack.length * 2);
+            hashStack = Arrays.copyOf(hashStack, hashStack.length * 2);
+        }
+        hashStack[undoCount] = hash;
+        undoStack[undoCount++] = from
+                | (long) to << 6
+                | (long) (captured + 1) << 12
+                | (promotes ? 1L : 0L) << 16
+                | (enPassant ? 1L : 0L) << 17
+                | (long) castlingRights << 18
+                | (long) (enPassantSquare + 1) << 22
+                | (long) (halfMoveClock & 0xFFFF) << 29;
+
+        halfMoveClock++;
+        if (captured != NO_PIECE) {
+            // en passant removes the pawn behind the target square
+            removePiece(enPassant ? (us == WHITE ? to - 8 : to + 8) : to);
+            halfMoveClock = 0;
+        }
+        if (type == PAWN) {
+            halfMoveClock = 0;
+        }
+
+        relocatePiece(from, to);
+
+        if (promotes) {
+            putPiece(to, us, promotion);
+        }
+
+        // castling also moves the rook
+        if (type == KING && Math.abs(to - from) == 2) {
+            if (to > from) {
+                relocatePiece(to + 1, to - 1);
+            } else {
+                relocatePiece(to - 2, to + 1);
+            }
+        }
+
+        int rights = castlingRights & CASTLING_MASK[from] & CASTLING_MASK[to];
+        hash ^= Zobrist.castling(castlingRights) ^ Zobrist.castling(rights);
+        castlingRights = rights;
+
+        // only record an en passant square that an enemy pawn can capture on,
+        // so that repeated positions hash the same
+        int newEnPassant = NO_SQUARE;
+        if (type == PAWN && Math.abs(to - from) == 16) {
+            int behind = (from + to) / 2;
+            if ((Attacks.pawn(us, behind) & pieces[pieceCode(1 - us, PAWN)]) != 0) {
+                newEnPassant = behind;
+            }
+        }
+        hash ^= Zobrist.enPassant(enPassantSquare) ^ Zobrist.enPassant(newEnPassant);
+        enPassantSquare = newEnPassant;
+
+        if (us == BLACK) {
+            fullMoveNumber++;
+        }
+        sideToMove = 1 - us;
+        hash ^= Zobrist.blackToMove();
+    }
+
+    /**
+     * Takes back the last move made with {@link #makeMove(int, int, int)},
+     * restoring the position exactly as it was.
+     *
+     * @throws IllegalStateException if there is no move to take back
+     */
+    public void unmakeMove() {
+        if (undoCount == 0) {
+            throw new IllegalStateException("No move to unmake");
+        }
+        long undo = undoStack[--undoCount];
+        int from = (int) (undo & 63);
+        int to = (int) (undo >>> 6 & 63);
+        int captured = (int) (undo >>> 12 & 15) - 1;
+        boolean promotes = (undo >>> 16 & 1) != 0;
+        boolean enPassant = (undo >>> 17 & 1) != 0;
+
+        sideToMove = 1 - sideToMove;
+        int us = sideToMove;
+        if (us == BLACK) {
+            fullMoveNumber--;
+        }
+        castlingRights = (int) (undo >>> 18 & 15);
+        enPassantSquare = (int) (undo >>> 22 & 127) - 1;
+        halfMoveClock = (int) (undo >>> 29 & 0xFFFF);
+
+        // put the rook back first so the king's home square is free of it
+        if (typeOf(mailbox[to]) == KING && Math.abs(to - from) == 2) {
+            if (to > from) {
+                relocatePiece(to - 1, to + 1);
+            } else {
+                relocatePiece(to + 1, to - 2);
+            }
+        }
+
+        if (promotes) {
+            removePiece(to);
+            putPiece(from, us, PAWN);
+        } else {
+            relocatePiece(to, from);
+        }
+
+        if (captured != NO_PIECE) {
+            int capturedSquare = enPassant ? (us == WHITE ? to - 8 : to + 8) : to;
+            putPiece(capturedSquare, colorOf(captured), typeOf(captured));
+        }
+
+        hash = hashStack[undoCount];
+    }
+
+    /**
+     * Passes the turn to the other side without moving a piece, for null-move
+     * pruning. Any en passant square lapses, and the halfmove clock restarts so
+     * repetitions aren't looked for across the pass. Take it back with
+     * {@link #unmakeNullMove()}.
+     */
+    public void makeNullMove() {
+        if (undoCount == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, undoStack.length * 2);
+            hashStack = Arrays.copyOf(hashStack, hashStack.length * 2);
+        }
+        hashStack[undoCount] = hash;
+        undoStack[undoCount++] = (long) castlingRights << 18
+                | (long) (enPassantSquare + 1) << 22
+                | (long) (halfMoveClock & 0xFFFF) << 29;
+
+        hash ^= Zobrist.enPassant(enPassantSquare) ^ Zobrist.enPassant(NO_SQUARE);
+        enPassantSquare = NO_SQUARE;
+        halfMoveClock = 0;
+        if (sideToMove == BLACK) {
+            fullMoveNumber++;
+        }
+        sideToMove = 1 - sideToMove;
+        hash ^= Zobrist.blackToMove();
+    }
+
+    /**
+     * Takes back a pass made with {@link #makeNullMove()}.
+     *
+     * @throws IllegalStateException if there is no move to take back
+     */
+    public void unmakeNullMove() {
+        if (undoCount == 0) {
+            throw new IllegalStateException("No move to unmake");
+        }
+        long undo = undoStack[--undoCount];
+        sideToMove = 1 - sideToMove;
+        if (sideToMove == BLACK) {
+            fullMoveNumber--;
+        }
+        enPassantSquare = (int) (undo >>> 22 & 127) - 1;
+        halfMoveClock = (int) (undo >>> 29 & 0xFFFF);
+        hash = hashStack[undoCount];
+    }
+
+    /**
+     * Counts how many earlier positions in the undo history are the same as
+     * the current one. Only positions since the last capture or pawn move can
+     * repeat, so the scan stops at the halfmove clock boundary and only looks
+     * at positions with the same side to move.
+     *
+     * @return the number of earlier occurrences of the current position
+     */
+    public int countRepetitions() {
+        int count = 0;
+        int limit = Math.min(halfMoveClock, undoCount);
+        for (int pliesAgo = 4; pliesAgo <= limit; pliesAgo += 2) {
+            if (hashStack[undoCount - pliesAgo] == hash) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of moves that can currently be taken back
+     */
+    public int getUndoDepth() {
+        return undoCount;
+    }
+}
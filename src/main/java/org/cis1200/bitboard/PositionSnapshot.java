@@ -0,0 +1,117 @@
+package org.cis1200.bitboard;
+
+/**
+ * An immutable copy of a {@link Position}: its piece bitboards, game state and
+ * the last moves that can still matter for repetition, held in a few
+ * primitive arrays that are never changed after construction.
+ *
+ * Because every field is final and nothing it holds is handed out, a snapshot
+ * can be read by any number of threads at once without locking, and can be
+ * published to them through a volatile field. Taking one copies twelve
+ * bitboards and at most a hundred or so history entries, so it is cheap
+ * enough to do after every move.
+ *
+ * A thread that wants to search or play on from a snapshot turns it back into
+ * a position of its own with {@link #toPosition()}.
+ */
+public final class PositionSnapshot {
+    private final long[] pieces;
+    private final int sideToMove;
+    private final int castlingRights;
+    private final int enPassantSquare;
+    private final int halfMoveClock;
+    private final int fullMoveNumber;
+    private final long hash;
+
+    // The undo records and hashes of the moves since the last capture or pawn
+    // move (oldest first), so repetitions and take-backs work after restoring
+    private final long[] undoRecords;
+    private final long[] undoHashes;
+
+    PositionSnapshot(
+            long[] pieces, int sideToMove, int castlingRights, int enPassantSquare,
+            int halfMoveClock, int fullMoveNumber, long hash, long[] undoRecords,
+            long[] undoHashes
+    ) {
+        this.pieces = pieces;
+        this.sideToMove = sideToMove;
+        this.castlingRights = castlingRights;
+        this.enPassantSquare = enPassantSquare;
+        this.halfMoveClock = halfMoveClock;
+        this.fullMoveNumber = fullMoveNumber;
+        this.hash = hash;
+        this.undoRecords = undoRecords;
+        this.undoHashes = undoHashes;
+    }
+
+    /**
+     * @return a new position equal to the one the snapshot was taken of
+     */
+    public Position toPosition() {
+        Position position = new Position();
+        position.copyFrom(this);
+        return position;
+    }
+
+    /**
+     * @return the bitboard of pieces of a color and type
+     */
+    public long getPieces(int color, int type) {
+        return pieces[Position.pieceCode(color, type)];
+    }
+
+    /**
+     * @return the piece code on a square, or {@link Position#NO_PIECE}
+     */
+    public int getPieceAt(int square) {
+        long bit = 1L << square;
+        for (int piece = 0; piece < pieces.length; piece++) {
+            if ((pieces[piece] & bit) != 0) {
+                return piece;
+            }
+        }
+        return Position.NO_PIECE;
+    }
+
+    public int getSideToMove() {
+        return sideToMove;
+    }
+
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    public int getHalfMoveClock() {
+        return halfMoveClock;
+    }
+
+    public int getFullMoveNumber() {
+        return fullMoveNumber;
+    }
+
+    /**
+     * @return the Zobrist key of the position
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * @return how many moves a restored position can take back
+     */
+    public int getUndoDepth() {
+        return undoRecords.length;
+    }
+
+    long getUndoRecord(int index) {
+        return undoRecords[index];
+    }
+
+    long getUndoHash(int index) {
+        return undoHashes[index];
+    }
+}
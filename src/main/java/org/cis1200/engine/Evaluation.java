@@ -0,0 +1,81 @@
+package org.cis1200.engine;
+
+import org.cis1200.bitboard.PieceSquareTables;
+import org.cis1200.bitboard.Position;
+import org.cis1200.util.Piece;
+
+/**
+ * Static evaluation of a position in centipawns.
+ *
+ * The score is material plus piece-square bonuses, blended between middlegame
+ * and endgame values by how much material is left. The position keeps both
+ * sums and the phase up to date as moves are made, so evaluating a leaf is a
+ * few arithmetic operations rather than a scan of the board.
+ */
+public final class Evaluation {
+
+    // Piece.pieceValues in centipawns, indexed by Position piece type
+    private static final int[] PIECE_VALUES = new int[6];
+
+    static {
+        for (Piece.Type type : Piece.Type.values()) {
+            PIECE_VALUES[type.ordinal()] = Piece.pieceValues.get(type) * 100;
+        }
+    }
+
+    private Evaluation() {
+    }
+
+    /**
+     * @param type a Position piece type
+     * @return the material value of the piece type in centipawns
+     */
+    public static int pieceValue(int type) {
+        return PIECE_VALUES[type];
+    }
+
+    /**
+     * Scores a position from its incrementally kept sums.
+     *
+     * @param position the position to score
+     * @return the score from the side to move's point of view
+     */
+    public static int evaluate(Position position) {
+        int score = taper(
+                position.getMidgameScore(), position.getEndgameScore(), position.getPhase()
+        );
+        return position.getSideToMove() == Position.WHITE ? score : -score;
+    }
+
+    /**
+     * Scores a position by summing the tables over every piece on the board.
+     * Gives the same result as {@link #evaluate(Position)}, and exists to
+     * check the incremental sums.
+     *
+     * @param position the position to score
+     * @return the score from the side to move's point of view
+     */
+    public static int evaluateFromScratch(Position position) {
+        int midgame = 0;
+        int endgame = 0;
+        int phase = 0;
+        long occupied = position.getOccupied();
+        while (occupied != 0) {
+            int square = Long.numberOfTrailingZeros(occupied);
+            occupied &= occupied - 1;
+            int piece = position.getPieceAt(square);
+            midgame += PieceSquareTables.midgame(piece, square);
+            endgame += PieceSquareTables.endgame(piece, square);
+            phase += PieceSquareTables.phase(piece);
+        }
+        int score = taper(midgame, endgame, phase);
+        return position.getSideToMove() == Position.WHITE ? score : -score;
+    }
+
+    private static int taper(int midgame, int endgame, int phase) {
+        // promotions can push the phase past the starting total
+        int weight = Math.min(phase, PieceSquareTables.MAX_PHASE);
+        return (midgame * weight + endgame * (PieceSquareTables.MAX_PHASE - weight))
+                / PieceSquareTables.MAX_PHASE;
+    }
+}
@@ -0,0 +1,197 @@
+package org.cis1200.engine;
+
+import org.cis1200.bitboard.Move;
+import org.cis1200.bitboard.MoveList;
+import org.cis1200.bitboard.Position;
+
+/**
+ * Decides the order a search tries moves in, since alpha-beta cuts off far
+ * more of the tree when the best move comes first.
+ *
+ * Moves are scored, in decreasing priority: the transposition table move,
+ * captures and promotions that don't lose material (by {@link StaticExchange})
+ * ordered by most valuable victim / least valuable attacker, the two killer
+ * moves of the ply (quiet moves that recently caused a cutoff in a sibling
+ * node), the countermove to the opponent's last move, the remaining quiet
+ * moves by their history score, and finally the losing captures. History scores grow when
+ * a move causes a cutoff and shrink when it was tried first but failed, with
+ * "gravity" pulling large scores back so they stay within
+ * +-{@link #MAX_HISTORY} and recent results matter most.
+ *
+ * All state is in primitive arrays sized for the search, so ordering doesn't
+ * allocate. One instance belongs to one search thread.
+ */
+public class MoveOrderer {
+    /** Largest magnitude a history score can reach. */
+    public static final int MAX_HISTORY = 16384;
+
+    private static final int TT_MOVE_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 29;
+    private static final int KILLER_SCORE = 1 << 28;
+    private static final int COUNTER_SCORE = 1 << 27;
+    private static final int BAD_CAPTURE_SCORE = -(1 << 27);
+
+    // Scores of the moves in each ply's list, by index
+    private final int[][] scores = new int[Search.MAX_PLY + 1][MoveList.CAPACITY];
+    private final int[][] killers = new int[Search.MAX_PLY + 1][2];
+    // Indexed by the piece code and target square of the opponent's move
+    private final int[][] counterMoves = new int[12][64];
+    // Indexed by side to move, from square and to square ("butterfly" board)
+    private final int[][][] history = new int[2][64][64];
+
+    /**
+     * Prepares for a new search: killers are forgotten, and history is halved
+     * so the last search still helps but doesn't dominate.
+     */
+    public void newSearch() {
+        for (int[] plyKillers : killers) {
+            plyKillers[0] = Move.NONE;
+            plyKillers[1] = Move.NONE;
+        }
+        for (int[][] side : history) {
+            for (int[] from : side) {
+                for (int to = 0; to < 64; to++) {
+                    from[to] /= 2;
+                }
+            }
+        }
+    }
+
+    /**
+     * Scores every move in a list ready for {@link #pickNext}.
+     *
+     * @param position     the position the moves are for
+     * @param moves        the moves to score
+     * @param ply          the ply of the node
+     * @param ttMove       the move to try first, or {@link Move#NONE}
+     * @param previousMove the opponent's last move, or {@link Move#NONE}
+     */
+    public void scoreMoves(Position position, MoveList moves, int ply, int ttMove, int previousMove) {
+        int[] plyScores = scores[ply];
+        int side = position.getSideToMove();
+        int counter = counterMove(position, previousMove);
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int score;
+            if (move == ttMove) {
+                score = TT_MOVE_SCORE;
+            } else if (Move.isCapture(move) || Move.isPromotion(move)) {
+                // captures that lose material in the exchange go after quiets
+                score = mvvLva(position, move);
+                score += StaticExchange.seeGreaterOrEqual(position, move, 0) ? CAPTURE_SCORE
+                        : BAD_CAPTURE_SCORE;
+            } else if (move == killers[ply][0]) {
+                score = KILLER_SCORE + 1;
+            } else if (move == killers[ply][1]) {
+                score = KILLER_SCORE;
+            } else if (move == counter) {
+                score = COUNTER_SCORE;
+            } else {
+                score = history[side][Move.from(move)][Move.to(move)];
+            }
+            plyScores[i] = score;
+        }
+    }
+
+    /**
+     * Moves the best scored move at or after an index to that index, so moves
+     * are only sorted as far as the search actually gets.
+     *
+     * @param moves the scored moves
+     * @param ply   the ply the moves were scored at
+     * @param index the index to fill
+     * @return the move now at the index
+     */
+    public int pickNext(MoveList moves, int ply, int index) {
+        int[] plyScores = scores[ply];
+        int best = index;
+        for (int i = index + 1; i < moves.size(); i++) {
+            if (plyScores[i] > plyScores[best]) {
+                best = i;
+            }
+        }
+        if (best != index) {
+            moves.swap(index, best);
+            int score = plyScores[index];
+            plyScores[index] = plyScores[best];
+            plyScores[best] = score;
+        }
+        return moves.get(index);
+    }
+
+    /**
+     * Records that a quiet move caused a beta cutoff: it becomes a killer and
+     * the countermove, gains history, and the quiet moves tried before it lose
+     * history.
+     *
+     * @param position     the position the move was played in
+     * @param moves        the node's move list, in the order tried
+     * @param cutoffIndex  the index of the move that cut off
+     * @param ply          the ply of the node
+     * @param depth        the remaining depth of the node
+     * @param previousMove the opponent's last move, or {@link Move#NONE}
+     */
+    public void recordCutoff(
+            Position position, MoveList moves, int cutoffIndex, int ply, int depth,
+            int previousMove
+    ) {
+        int move = moves.get(cutoffIndex);
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        if (previousMove != Move.NONE) {
+            int to = Move.to(previousMove);
+            counterMoves[position.getPieceAt(to)][to] = move;
+        }
+
+        int side = position.getSideToMove();
+        int bonus = Math.min(depth * depth, MAX_HISTORY);
+        updateHistory(side, move, bonus);
+        for (int i = 0; i < cutoffIndex; i++) {
+            int tried = moves.get(i);
+            if (!Move.isCapture(tried) && !Move.isPromotion(tried)) {
+                updateHistory(side, tried, -bonus);
+            }
+        }
+    }
+
+    /**
+     * @return the history score of a quiet move for a side
+     */
+    public int getHistory(int side, int move) {
+        return history[side][Move.from(move)][Move.to(move)];
+    }
+
+    private void updateHistory(int side, int move, int bonus) {
+        int[] entry = history[side][Move.from(move)];
+        int to = Move.to(move);
+        // gravity: the closer a score is to the limit, the less it moves
+        entry[to] += bonus - entry[to] * Math.abs(bonus) / MAX_HISTORY;
+    }
+
+    private int counterMove(Position position, int previousMove) {
+        if (previousMove == Move.NONE) {
+            return Move.NONE;
+        }
+        int to = Move.to(previousMove);
+        return counterMoves[position.getPieceAt(to)][to];
+    }
+
+    /**
+     * @return a capture or promotion's score: the victim's value counts most,
+     *         then the cheapest attacker breaks ties
+     */
+    private static int mvvLva(Position position, int move) {
+        int score = 0;
+        if (Move.isEnPassant(move)) {
+            score += Evaluation.pieceValue(Position.PAWN);
+        } else if (Move.isCapture(move)) {
+            score += Evaluation.pieceValue(Position.typeOf(position.getPieceAt(Move.to(move))));
+        }
+        if (Move.isPromotion(move)) {
+            score += Evaluation.pieceValue(Move.promotion(move));
+        }
+        return score * 8 - Position.typeOf(position.getPieceAt(Move.from(move)));
+    }
+}
@@ -0,0 +1,261 @@
+package org.cis1200.engine;
+
+import java.util.EnumSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.cis1200.Board;
+import org.cis1200.bitboard.Position;
+
+/**
+ * Searches with several threads at once ("lazy SMP").
+ *
+ * Every worker runs an ordinary {@link Search} of the same root on its own
+ * copy of the position. They share one transposition table, so each worker
+ * finds the results the others have stored and they drift apart into
+ * different parts of the tree. Half of the helpers start one ply deeper to
+ * spread them out further. The calling thread runs the main worker, whose
+ * limits and result count; when it finishes, it makes a stop request that
+ * ends the helpers.
+ */
+public class ParallelSearch {
+    private static final String STARTING_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private final TranspositionTable table;
+    private final Search[] workers;
+    // Counts stop requests; every worker ends when it moves
+    private final AtomicInteger stopRequests = new AtomicInteger();
+
+    /**
+     * Creates a parallel search.
+     *
+     * @param threads the number of threads to search with, including the
+     *                calling thread
+     * @param hashMb  the size of the shared transposition table in megabytes
+     */
+    public ParallelSearch(int threads, int hashMb) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Search needs at least one thread");
+        }
+        this.table = new TranspositionTable(hashMb);
+        this.workers = new Search[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Search(table);
+        }
+    }
+
+    public int getThreads() {
+        return workers.length;
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return table;
+    }
+
+    /**
+     * Searches the current position of a board.
+     *
+     * @param board  the board to search (not modified)
+     * @param limits when to stop
+     * @return the main worker's best move and score, with the nodes of all
+     *         workers
+     */
+    public SearchResult search(Board board, SearchLimits limits) {
+        return search(board.getPosition(), limits);
+    }
+
+    /**
+     * Searches a position.
+     *
+     * @param root   the position to search (not modified)
+     * @param limits when to stop
+     * @return the main worker's best move and score, with the nodes and
+     *         statistics of all workers
+     */
+    public SearchResult search(Position root, SearchLimits limits) {
+        return search(root, limits, stopRequests.get());
+    }
+
+    /**
+     * Searches a position for another thread. Reading
+     * {@link #getStopRequests()} before handing the search over means a
+     * {@link #stop()} that comes before this method begins isn't lost.
+     *
+     * @param root        the position to search (not modified)
+     * @param limits      when to stop
+     * @param stopsBefore the number of stop requests already made; any
+     *                    further one ends the search
+     * @return the main worker's best move and score, with the nodes and
+     *         statistics of all workers
+     */
+    public SearchResult search(Position root, SearchLimits limits, int stopsBefore) {
+        table.newSearch();
+
+        // helpers only stop when told to
+        SearchLimits helperLimits = SearchLimits.depth(SearchLimits.MAX_DEPTH);
+        Thread[] helpers = new Thread[workers.length - 1];
+        for (int i = 0; i < helpers.length; i++) {
+            Search helper = workers[i + 1];
+            int startDepth = 1 + (i + 1) % 2;
+            helpers[i] = new Thread(
+                    () -> helper.search(
+                            root, helperLimits, startDepth, stopRequests, stopsBefore
+                    ),
+                    "search-" + (i + 1)
+            );
+            helpers[i].setDaemon(true);
+            helpers[i].start();
+        }
+
+        SearchResult result;
+        try {
+            result = workers[0].search(root, limits, 1, stopRequests, stopsBefore);
+        } finally {
+            stop();
+            for (Thread helper : helpers) {
+                joinUninterruptibly(helper);
+            }
+        }
+
+        long nodes = 0;
+        SearchStatistics statistics = new SearchStatistics();
+        for (Search worker : workers) {
+            nodes += worker.getNodes();
+            statistics.add(worker.getStatistics());
+        }
+        return new SearchResult(
+                result.getBestMove(), result.getScore(), result.getDepth(), nodes,
+                result.getTimeMillis(), result.getPrincipalVariation(), statistics
+        );
+    }
+
+    /**
+     * Sets who to tell as each iteration of the main worker completes, or
+     * {@code null} for no one. Reported node counts include every worker.
+     */
+    public void setListener(SearchListener listener) {
+        if (listener == null) {
+            workers[0].setListener(null);
+            return;
+        }
+        workers[0].setListener(result -> {
+            long nodes = 0;
+            for (Search worker : workers) {
+                nodes += worker.getNodes();
+            }
+            listener.iterationCompleted(new SearchResult(
+                    result.getBestMove(), result.getScore(), result.getDepth(), nodes,
+                    result.getTimeMillis(), result.getPrincipalVariation(), result.getStatistics()
+            ));
+        });
+    }
+
+    /**
+     * Switches one of the selective parts of the search on or off for every
+     * worker. Takes effect from the next search.
+     */
+    public void setFeatureEnabled(SearchFeature feature, boolean enabled) {
+        for (Search worker : workers) {
+            worker.setFeatureEnabled(feature, enabled);
+        }
+    }
+
+    /**
+     * Asks a running search to stop as soon as possible, or one that was
+     * given an earlier {@link #getStopRequests()} to stop as soon as it
+     * starts. Safe to call from any thread.
+     */
+    public void stop() {
+        stopRequests.incrementAndGet();
+    }
+
+    /**
+     * @return how many times {@link #stop()} has been called, including once
+     *         at the end of every search to end its helpers
+     */
+    public int getStopRequests() {
+        return stopRequests.get();
+    }
+
+    private static void joinUninterruptibly(Thread thread) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Prints how long each thread count takes to reach a fixed depth, with a
+     * cleared table for every run. Selective features can be disabled by name
+     * to compare.
+     */
+    public static void main(String[] args) {
+        String fen = STARTING_POSITION;
+        int depth = 7;
+        int hashMb = 64;
+        int[] threadCounts = { 1, 2, 4, 8, 16 };
+        EnumSet<SearchFeature> disabled = EnumSet.noneOf(SearchFeature.class);
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--fen" -> fen = args[++i];
+                case "--depth" -> depth = Integer.parseInt(args[++i]);
+                case "--hash" -> hashMb = Integer.parseInt(args[++i]);
+                case "--threads" -> {
+                    String[] counts = args[++i].split(",");
+                    threadCounts = new int[counts.length];
+                    for (int j = 0; j < counts.length; j++) {
+                        threadCounts[j] = Integer.parseInt(counts[j]);
+                    }
+                }
+                case "--disable" -> {
+                    for (String name : args[++i].split(",")) {
+                        disabled.add(SearchFeature.valueOf(name.toUpperCase()));
+                    }
+                }
+                default -> {
+                    System.err.println(
+                            "Usage: ParallelSearch [--fen FEN] [--depth N] [--hash MB] [--threads 1,2,4]"
+                                    + " [--disable FEATURE,...]"
+                    );
+                    System.exit(1);
+                }
+            }
+        }
+
+        Position position = Board.FENtoBoard(fen).getPosition();
+        // one untimed search first so the JIT has compiled the hot paths
+        ParallelSearch warmUp = new ParallelSearch(1, hashMb);
+        disabled.forEach(feature -> warmUp.setFeatureEnabled(feature, false));
+        warmUp.search(position, SearchLimits.depth(depth));
+
+        System.out.println("Time to depth " + depth + " (" + Runtime.getRuntime()
+                .availableProcessors() + " cores available)");
+        System.out.printf("%8s %10s %12s %12s %8s%n", "threads", "time ms", "nodes", "nps", "speedup");
+
+        long baseline = 0;
+        for (int threads : threadCounts) {
+            ParallelSearch search = new ParallelSearch(threads, hashMb);
+            disabled.forEach(feature -> search.setFeatureEnabled(feature, false));
+            long start = System.nanoTime();
+            SearchResult result = search.search(position, SearchLimits.depth(depth));
+            long elapsedNanos = Math.max(1, System.nanoTime() - start);
+            if (baseline == 0) {
+                baseline = elapsedNanos;
+            }
+            System.out.printf(
+                    "%8d %10d %12d %12d %8.2f%n", threads, elapsedNanos / 1_000_000,
+                    result.getNodes(), result.getNodes() * 1_000_000_000L / elapsedNanos,
+                    (double) baseline / elapsedNanos
+            );
+            System.out.println("         " + result.getStatistics());
+        }
+    }
+}
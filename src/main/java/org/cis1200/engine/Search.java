@@ -0,0 +1,654 @@
+package org.cis1200.engine;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.cis1200.Board;
+import org.cis1200.bitboard.Move;
+import org.cis1200.bitboard.MoveGenerator;
+import org.cis1200.bitboard.MoveList;
+import org.cis1200.bitboard.Position;
+
+/**
+ * Chooses a move by negamax alpha-beta search with iterative deepening.
+ *
+ * Each iteration searches one ply deeper than the last, starting with the
+ * previous iteration's best move so cutoffs come early. The line of
+ * best play is collected in a triangular principal-variation table as the
+ * search unwinds. If a limit is hit mid-iteration, the result of the last
+ * completed iteration is returned. Under a game clock, a {@link TimeManager}
+ * decides between iterations whether another one is worth starting.
+ *
+ * Results are cached in a {@link TranspositionTable}: a stored result deep
+ * enough ends the search of a node straight away, and otherwise its best move
+ * is searched first. The remaining moves are ordered by {@link MoveOrderer}.
+ *
+ * At the horizon a quiescence search follows captures and promotions until
+ * the position is quiet, so a piece left hanging on the last ply is seen.
+ *
+ * To reach deeper in the same time, the search is selective: see
+ * {@link SearchFeature} for the parts that can be switched off, and
+ * {@link SearchStatistics} for how often each took effect.
+ *
+ * A Search reuses its buffers between calls, so one instance must not run two
+ * searches at once; use one instance per thread.
+ */
+public class Search {
+    /** Score bound larger than any real score. */
+    public static final int INFINITY = 32001;
+    /** Score of delivering mate now; mate in n plies scores MATE - n. */
+    public static final int MATE = 32000;
+    /** Deepest ply the search tracks, including extensions. */
+    public static final int MAX_PLY = 128;
+
+    /** Transposition table size used by {@link #Search()}. */
+    public static final int DEFAULT_HASH_MB = 16;
+
+    // Half-width of the first aspiration window, doubled on every failure
+    private static final int ASPIRATION_WINDOW = 25;
+    // Futility pruning margin per ply of remaining depth, and the deepest
+    // nodes the two kinds of futility pruning apply to
+    private static final int FUTILITY_MARGIN = 100;
+    private static final int FUTILITY_DEPTH = 3;
+    private static final int REVERSE_FUTILITY_DEPTH = 6;
+    // Depth reduction of a late quiet move, indexed by depth and move number
+    private static final int[][] REDUCTIONS = new int[64][64];
+
+    static {
+        for (int depth = 1; depth < 64; depth++) {
+            for (int moveNumber = 1; moveNumber < 64; moveNumber++) {
+                REDUCTIONS[depth][moveNumber] = (int) (0.75
+                        + Math.log(depth) * Math.log(moveNumber) / 2.25);
+            }
+        }
+    }
+
+    // How far beyond its victim's value a capture may still raise the score
+    // (positional swings); below that, quiescence search skips it
+    private static final int DELTA_MARGIN = 200;
+
+    // How often (in nodes) to ask the time manager whether time is up
+    private static final int TIME_CHECK_INTERVAL = 1024;
+
+    private final TranspositionTable table;
+    private final MoveOrderer orderer = new MoveOrderer();
+    private final EnumSet<SearchFeature> features = EnumSet.allOf(SearchFeature.class);
+
+    private final MoveList[] moveLists = new MoveList[MAX_PLY + 1];
+    private final int[][] pvTable = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+    // The move made at each ply on the current line
+    private final int[] movesMade = new int[MAX_PLY + 1];
+
+    private Position position;
+    private SearchStatistics statistics = new SearchStatistics();
+    private SearchListener listener;
+    // The enabled features, read once per search for the hot path
+    private boolean principalVariationSearch;
+    private boolean aspirationWindows;
+    private boolean nullMovePruning;
+    private boolean lateMoveReductions;
+    private boolean futilityPruning;
+    private boolean checkExtensions;
+    private long nodes;
+    private long nodeLimit;
+    private TimeManager timeManager;
+    private boolean aborted;
+    // The time limit is ignored until depth 1 completes, so a timed search
+    // always has a searched move to return
+    private boolean canAbort;
+    // Counts calls to stop(); never replaced, so no request can be missed
+    private final AtomicInteger stopRequests = new AtomicInteger();
+    // The count the current search ends on a change of (a parallel search's
+    // workers all watch its count) and the value it started from
+    private AtomicInteger stopCount;
+    private int stopsBefore;
+
+    /**
+     * Creates a search with its own transposition table of the default size.
+     */
+    public Search() {
+        this(new TranspositionTable(DEFAULT_HASH_MB));
+    }
+
+    /**
+     * Creates a search that caches results in the given table.
+     *
+     * @param table the transposition table to use
+     */
+    public Search(TranspositionTable table) {
+        this.table = table;
+        for (int i = 0; i < moveLists.length; i++) {
+            moveLists[i] = new MoveList();
+        }
+    }
+
+    /**
+     * Searches the current position of a board.
+     *
+     * @param board  the board to search (not modified)
+     * @param limits when to stop
+     * @return the best move found and its score
+     */
+    public SearchResult search(Board board, SearchLimits limits) {
+        return search(board.getPosition(), limits);
+    }
+
+    /**
+     * Searches a position.
+     *
+     * @param root   the position to search (not modified)
+     * @param limits when to stop
+     * @return the best move found and its score
+     */
+    public SearchResult search(Position root, SearchLimits limits) {
+        return search(root, limits, stopRequests.get());
+    }
+
+    /**
+     * Searches a position for another thread. Reading
+     * {@link #getStopRequests()} before handing the search over means a
+     * {@link #stop()} that comes before this method begins isn't lost.
+     *
+     * @param root        the position to search (not modified)
+     * @param limits      when to stop
+     * @param stopsBefore the number of stop requests already made; any
+     *                    further one ends the search
+     * @return the best move found and its score
+     */
+    public SearchResult search(Position root, SearchLimits limits, int stopsBefore) {
+        table.newSearch();
+        return search(root, limits, 1, stopRequests, stopsBefore);
+    }
+
+    /**
+     * Runs one worker's search without starting a new table generation, so
+     * several workers can share a table and a stop request count.
+     *
+     * @param root        the position to search (not modified)
+     * @param limits      when to stop
+     * @param startDepth  the depth of the first iteration
+     * @param stopCount   ends the search when it moves past stopsBefore
+     * @param stopsBefore the value of stopCount when the search was started
+     * @return the best move found and its score
+     */
+    SearchResult search(
+            Position root, SearchLimits limits, int startDepth, AtomicInteger stopCount,
+            int stopsBefore
+    ) {
+        long start = System.nanoTime();
+        position = new Position(root);
+        nodes = 0;
+        nodeLimit = limits.getNodes();
+        timeManager = new TimeManager(limits, root.getFullMoveNumber(), start);
+        aborted = false;
+        canAbort = false;
+        this.stopCount = stopCount;
+        this.stopsBefore = stopsBefore;
+        orderer.newSearch();
+        statistics = new SearchStatistics();
+        principalVariationSearch = features.contains(SearchFeature.PRINCIPAL_VARIATION_SEARCH);
+        aspirationWindows = features.contains(SearchFeature.ASPIRATION_WINDOWS);
+        nullMovePruning = features.contains(SearchFeature.NULL_MOVE_PRUNING);
+        lateMoveReductions = features.contains(SearchFeature.LATE_MOVE_REDUCTIONS);
+        futilityPruning = features.contains(SearchFeature.FUTILITY_PRUNING);
+        checkExtensions = features.contains(SearchFeature.CHECK_EXTENSIONS);
+
+        int bestMove = Move.NONE;
+        int bestScore = 0;
+        int completedDepth = 0;
+        int[] pv = new int[0];
+
+        for (int depth = startDepth; depth <= limits.getDepth(); depth++) {
+            int score = searchRoot(depth, bestMove, bestScore, completedDepth > 0);
+            if (aborted) {
+                break;
+            }
+            pv = Arrays.copyOf(pvTable[0], pvLength[0]);
+            bestMove = pv.length > 0 ? pv[0] : Move.NONE;
+            bestScore = score;
+            completedDepth = depth;
+            canAbort = true;
+            if (listener != null) {
+                long elapsed = (System.nanoTime() - start) / 1_000_000L;
+                listener.iterationCompleted(
+                        new SearchResult(bestMove, score, depth, nodes, elapsed, pv, statistics)
+                );
+            }
+            // no legal moves, or a forced mate that this depth already covers
+            if (bestMove == Move.NONE
+                    || (isMateScore(score) && MATE - Math.abs(score) <= depth)) {
+                break;
+            }
+            if (timeManager.shouldStopIterating(bestMove, score)) {
+                break;
+            }
+        }
+
+        // stopped before depth 1 completed: any legal move beats none
+        if (completedDepth == 0 && aborted) {
+            MoveList moves = moveLists[0];
+            moves.clear();
+            position.generateLegalMoves(moves);
+            if (!moves.isEmpty()) {
+                bestMove = moves.get(0);
+                pv = new int[] { bestMove };
+            }
+        }
+
+        long elapsed = (System.nanoTime() - start) / 1_000_000L;
+        return new SearchResult(
+                bestMove, bestScore, completedDepth, nodes, elapsed, pv, statistics
+        );
+    }
+
+    /**
+     * Runs one iteration. With aspiration windows, the root is first searched
+     * in a narrow window around the last iteration's score; a score outside
+     * it only bounds the true score, so the window widens on that side and
+     * the root is searched again.
+     */
+    private int searchRoot(int depth, int bestMove, int lastScore, boolean haveLastScore) {
+        if (!aspirationWindows || !haveLastScore || depth < 4 || isMateScore(lastScore)) {
+            return negamax(depth, 0, -INFINITY, INFINITY, bestMove);
+        }
+        statistics.recordUse(SearchFeature.ASPIRATION_WINDOWS);
+        int window = ASPIRATION_WINDOW;
+        int alpha = Math.max(lastScore - window, -INFINITY);
+        int beta = Math.min(lastScore + window, INFINITY);
+        while (true) {
+            int score = negamax(depth, 0, alpha, beta, bestMove);
+            if (aborted || (score > alpha && score < beta)) {
+                return score;
+            }
+            statistics.recordResearch(SearchFeature.ASPIRATION_WINDOWS);
+            window *= 2;
+            if (score <= alpha) {
+                alpha = Math.max(score - window, -INFINITY);
+            } else {
+                beta = Math.min(score + window, INFINITY);
+                bestMove = pvTable[0][0];
+            }
+        }
+    }
+
+    /**
+     * Switches one of the selective parts of the search on or off. Takes
+     * effect from the next search.
+     */
+    public void setFeatureEnabled(SearchFeature feature, boolean enabled) {
+        if (enabled) {
+            features.add(feature);
+        } else {
+            features.remove(feature);
+        }
+    }
+
+    public boolean isFeatureEnabled(SearchFeature feature) {
+        return features.contains(feature);
+    }
+
+    /**
+     * Sets who to tell as each iteration completes, or {@code null} for no
+     * one.
+     */
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @return the feature counts of the current or last search
+     */
+    public SearchStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Asks a running search to stop as soon as possible, or one that was
+     * given an earlier {@link #getStopRequests()} to stop as soon as it
+     * starts. Safe to call from any thread.
+     */
+    public void stop() {
+        stopRequests.incrementAndGet();
+    }
+
+    /**
+     * @return how many times {@link #stop()} has been called
+     */
+    public int getStopRequests() {
+        return stopRequests.get();
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return table;
+    }
+
+    /**
+     * @return the nodes visited by the current or last search
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return whether the score means one side can force mate
+     */
+    public static boolean isMateScore(int score) {
+        return Math.abs(score) >= MATE - MAX_PLY;
+    }
+
+    /**
+     * @return the number of moves (not plies) to mate for a mate score,
+     *         negative if the side to move is getting mated
+     */
+    public static int mateIn(int score) {
+        return score > 0 ? (MATE - score + 1) / 2 : -(MATE + score) / 2;
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta, int firstMove) {
+        pvLength[ply] = ply;
+        boolean pvNode = beta - alpha > 1;
+        if (ply > 0 && (position.getHalfMoveClock() >= 100 || position.countRepetitions() > 0)) {
+            return 0;
+        }
+        if (ply >= MAX_PLY) {
+            return Evaluation.evaluate(position);
+        }
+        int us = position.getSideToMove();
+        boolean inCheck = position.isInCheck(us);
+        if (inCheck && checkExtensions) {
+            statistics.recordUse(SearchFeature.CHECK_EXTENSIONS);
+            depth++;
+        }
+        if (depth <= 0) {
+            return quiescence(ply, alpha, beta);
+        }
+        if (shouldStop()) {
+            return 0;
+        }
+        nodes++;
+
+        long key = position.getHash();
+        long entry = table.probe(key);
+        if (entry != 0) {
+            if (firstMove == Move.NONE) {
+                firstMove = TranspositionTable.move(entry);
+            }
+            // PV nodes always search so that the PV stays whole
+            if (!pvNode && ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int score = scoreFromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+                        || (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        int staticEval = inCheck ? -INFINITY : Evaluation.evaluate(position);
+        if (!pvNode && !inCheck && !isMateScore(beta)) {
+            // so far above beta that no quiet move will bring it back down
+            if (futilityPruning && depth <= REVERSE_FUTILITY_DEPTH
+                    && staticEval - FUTILITY_MARGIN * depth >= beta) {
+                statistics.recordUse(SearchFeature.FUTILITY_PRUNING);
+                return staticEval;
+            }
+            // never two passes in a row, and never with only pawns to move
+            // since passing might then be the best move
+            if (nullMovePruning && depth >= 3 && ply > 0 && movesMade[ply - 1] != Move.NONE
+                    && staticEval >= beta && hasPieces(us)) {
+                int reduction = 3 + depth / 6;
+                movesMade[ply] = Move.NONE;
+                position.makeNullMove();
+                int score = -negamax(depth - 1 - reduction, ply + 1, -beta, -beta + 1, Move.NONE);
+                position.unmakeNullMove();
+                if (aborted) {
+                    return 0;
+                }
+                if (score >= beta) {
+                    statistics.recordUse(SearchFeature.NULL_MOVE_PRUNING);
+                    // a mate found after passing isn't a real mate
+                    return isMateScore(score) ? beta : score;
+                }
+            }
+        }
+
+        MoveList moves = moveLists[ply];
+        moves.clear();
+        position.generateLegalMoves(moves);
+        if (moves.isEmpty()) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        int previousMove = ply > 0 ? movesMade[ply - 1] : Move.NONE;
+        orderer.scoreMoves(position, moves, ply, firstMove, previousMove);
+
+        boolean canPruneQuiets = futilityPruning && !pvNode && !inCheck && depth <= FUTILITY_DEPTH
+                && !isMateScore(alpha) && staticEval + FUTILITY_MARGIN * depth <= alpha;
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = Move.NONE;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = orderer.pickNext(moves, ply, i);
+            boolean quiet = !Move.isCapture(move) && !Move.isPromotion(move);
+            // worked out before the move is made, so pruned moves never are
+            boolean givesCheck = position.givesCheck(move);
+
+            if (canPruneQuiets && i > 0 && quiet && !givesCheck) {
+                statistics.recordUse(SearchFeature.FUTILITY_PRUNING);
+                continue;
+            }
+            movesMade[ply] = move;
+            position.makeMove(move);
+
+            int reduction = 0;
+            if (lateMoveReductions && depth >= 3 && i >= 3 && quiet && !inCheck && !givesCheck) {
+                reduction = REDUCTIONS[Math.min(depth, 63)][Math.min(i, 63)];
+                if (pvNode) {
+                    reduction--;
+                }
+                reduction = Math.max(0, Math.min(reduction, depth - 2));
+                if (reduction > 0) {
+                    statistics.recordUse(SearchFeature.LATE_MOVE_REDUCTIONS);
+                }
+            }
+
+            int score;
+            if (i == 0) {
+                score = -negamax(depth - 1, ply + 1, -beta, -alpha, Move.NONE);
+            } else {
+                // prove the move is no better than the best so far, and only
+                // search it properly if that fails
+                int searchBeta = beta;
+                if (principalVariationSearch && alpha + 1 < beta) {
+                    statistics.recordUse(SearchFeature.PRINCIPAL_VARIATION_SEARCH);
+                    searchBeta = alpha + 1;
+                }
+                score = -negamax(depth - 1 - reduction, ply + 1, -searchBeta, -alpha, Move.NONE);
+                if (score > alpha && reduction > 0 && !aborted) {
+                    statistics.recordResearch(SearchFeature.LATE_MOVE_REDUCTIONS);
+                    score = -negamax(depth - 1, ply + 1, -searchBeta, -alpha, Move.NONE);
+                }
+                if (score > alpha && score < beta && searchBeta < beta && !aborted) {
+                    statistics.recordResearch(SearchFeature.PRINCIPAL_VARIATION_SEARCH);
+                    score = -negamax(depth - 1, ply + 1, -beta, -alpha, Move.NONE);
+                }
+            }
+            position.unmakeMove();
+            if (aborted) {
+                return 0;
+            }
+
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        if (quiet) {
+                            orderer.recordCutoff(position, moves, i, ply, depth, previousMove);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound = best >= beta ? TranspositionTable.LOWER_BOUND
+                : best > originalAlpha ? TranspositionTable.EXACT
+                : TranspositionTable.UPPER_BOUND;
+        // a fail-low node has no meaningful best move
+        int storedMove = bound == TranspositionTable.UPPER_BOUND ? Move.NONE : bestMove;
+        table.store(key, storedMove, scoreToTable(best, ply), depth, bound);
+        return best;
+    }
+
+    /**
+     * @return whether a side has anything besides its king and pawns
+     */
+    private boolean hasPieces(int color) {
+        return (position.getOccupancy(color) & ~position.getPieces(color, Position.PAWN)
+                & ~position.getPieces(color, Position.KING)) != 0;
+    }
+
+    /**
+     * Searches only captures and promotions (or every evasion when in check)
+     * until the position is quiet, so the evaluation is never taken in the
+     * middle of an exchange.
+     *
+     * When not in check the side to move may "stand pat" on the static
+     * evaluation, since it is rarely forced to capture. A capture that
+     * couldn't raise the score to alpha even after winning its victim outright
+     * (plus {@link #DELTA_MARGIN}) is skipped, as is one that loses material
+     * once the exchange on its square is played out.
+     */
+    private int quiescence(int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        if (ply >= MAX_PLY) {
+            return Evaluation.evaluate(position);
+        }
+        if (shouldStop()) {
+            return 0;
+        }
+        nodes++;
+
+        boolean inCheck = position.isInCheck(position.getSideToMove());
+        int best = -INFINITY;
+        int standPat = 0;
+        if (!inCheck) {
+            standPat = Evaluation.evaluate(position);
+            if (standPat >= beta) {
+                return standPat;
+            }
+            best = standPat;
+            alpha = Math.max(alpha, standPat);
+        }
+
+        MoveList moves = moveLists[ply];
+        moves.clear();
+        MoveGenerator.generateCaptures(position, moves);
+        if (moves.isEmpty()) {
+            return inCheck ? -MATE + ply : best;
+        }
+        orderer.scoreMoves(position, moves, ply, Move.NONE, Move.NONE);
+
+        for (int i = 0; i < moves.size(); i++) {
+            int move = orderer.pickNext(moves, ply, i);
+            if (!inCheck) {
+                // underpromotions almost never matter outside the main search
+                if (Move.isPromotion(move) && Move.promotion(move) != Position.QUEEN) {
+                    continue;
+                }
+                if (standPat + gain(move) + DELTA_MARGIN <= alpha) {
+                    continue;
+                }
+                // a capture that loses the exchange can't raise the score
+                if (!StaticExchange.seeGreaterOrEqual(position, move, 0)) {
+                    continue;
+                }
+            }
+            movesMade[ply] = move;
+            position.makeMove(move);
+            int score = -quiescence(ply + 1, -beta, -alpha);
+            position.unmakeMove();
+            if (aborted) {
+                return 0;
+            }
+
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return the most material a capture or promotion can win
+     */
+    private int gain(int move) {
+        int gain = 0;
+        if (Move.isEnPassant(move)) {
+            gain += Evaluation.pieceValue(Position.PAWN);
+        } else if (Move.isCapture(move)) {
+            gain += Evaluation.pieceValue(Position.typeOf(position.getPieceAt(Move.to(move))));
+        }
+        if (Move.isPromotion(move)) {
+            gain += Evaluation.pieceValue(Move.promotion(move)) - Evaluation.pieceValue(Position.PAWN);
+        }
+        return gain;
+    }
+
+    /**
+     * Mate scores count plies from the root, but a table entry may be reached
+     * at any ply, so they are stored relative to the node instead.
+     */
+    private static int scoreToTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score + ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int scoreFromTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score - ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    private void updatePv(int ply, int move) {
+        pvTable[ply][ply] = move;
+        int length = pvLength[ply + 1];
+        System.arraycopy(pvTable[ply + 1], ply + 1, pvTable[ply], ply + 1, length - ply - 1);
+        pvLength[ply] = length;
+    }
+
+    private boolean shouldStop() {
+        if (aborted) {
+            return true;
+        }
+        if (stopCount.get() != stopsBefore || nodes >= nodeLimit) {
+            aborted = true;
+        } else if (canAbort && nodes % TIME_CHECK_INTERVAL == 0
+                && timeManager.isHardLimitReached()) {
+            aborted = true;
+        }
+        return aborted;
+    }
+}
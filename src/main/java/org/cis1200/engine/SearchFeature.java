@@ -0,0 +1,47 @@
+package org.cis1200.engine;
+
+/**
+ * The selective parts of a {@link Search}, each of which can be switched off
+ * to measure what it is worth or to rule it out when hunting a bug. All are
+ * on by default.
+ */
+public enum SearchFeature {
+    /**
+     * Principal variation search: after the first move, moves are searched
+     * with a null window that only proves they are no better, and re-searched
+     * with the full window when one turns out better.
+     */
+    PRINCIPAL_VARIATION_SEARCH,
+
+    /**
+     * Each iteration starts the root with a narrow window around the previous
+     * score, widening it when the score falls outside.
+     */
+    ASPIRATION_WINDOWS,
+
+    /**
+     * Passing the move and still failing high with a reduced search proves the
+     * node would fail high anyway. Not tried with only king and pawns left,
+     * where passing may be the best move (zugzwang).
+     */
+    NULL_MOVE_PRUNING,
+
+    /**
+     * Quiet moves late in the ordering are searched shallower, and
+     * re-searched at full depth if they beat alpha.
+     */
+    LATE_MOVE_REDUCTIONS,
+
+    /**
+     * Near the horizon, a node whose static evaluation is far above beta
+     * returns straight away (reverse futility), and quiet moves that can't
+     * bring a score far below alpha back up are skipped (futility).
+     */
+    FUTILITY_PRUNING,
+
+    /**
+     * A side in check is searched one ply deeper, so forcing lines aren't cut
+     * short at the horizon.
+     */
+    CHECK_EXTENSIONS
+}
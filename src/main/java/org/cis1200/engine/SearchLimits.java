@@ -0,0 +1,129 @@
+package org.cis1200.engine;
+
+/**
+ * How far a search may go. A search stops at whichever limit it reaches
+ * first. The time limit waits for depth 1 to finish so there is a searched
+ * move to play; a node limit or a stop that comes sooner still leaves some
+ * legal move.
+ *
+ * Besides a fixed time per move, the limits can describe a game clock (the
+ * time left, the increment and the moves until the next time control), which
+ * a {@link TimeManager} turns into a budget for this move.
+ */
+public class SearchLimits {
+    /** Deepest iteration a search will start. */
+    public static final int MAX_DEPTH = 64;
+
+    private final int depth;
+    private final long nodes;
+    private final long timeMillis;
+    private final long clockMillis;
+    private final long incrementMillis;
+    private final int movesToGo;
+
+    /**
+     * Creates a set of search limits without a game clock.
+     *
+     * @param depth      the deepest iteration to run, capped at
+     *                   {@link #MAX_DEPTH}
+     * @param nodes      the most nodes to visit, or {@code Long.MAX_VALUE}
+     * @param timeMillis the most time to spend in milliseconds, or
+     *                   {@code Long.MAX_VALUE}
+     */
+    public SearchLimits(int depth, long nodes, long timeMillis) {
+        this(depth, nodes, timeMillis, Long.MAX_VALUE, 0, 0);
+    }
+
+    /**
+     * Creates a set of search limits.
+     *
+     * @param depth           the deepest iteration to run, capped at
+     *                        {@link #MAX_DEPTH}
+     * @param nodes           the most nodes to visit, or {@code Long.MAX_VALUE}
+     * @param timeMillis      the most time to spend in milliseconds, or
+     *                        {@code Long.MAX_VALUE}
+     * @param clockMillis     the time left on the side to move's clock, or
+     *                        {@code Long.MAX_VALUE} if there is no clock
+     * @param incrementMillis the time added to the clock after each move
+     * @param movesToGo       the moves until the next time control, or 0 if
+     *                        the rest of the game must be played in the time
+     */
+    public SearchLimits(
+            int depth, long nodes, long timeMillis, long clockMillis, long incrementMillis,
+            int movesToGo
+    ) {
+        if (depth < 1 || nodes < 1 || timeMillis < 0 || clockMillis < 0) {
+            throw new IllegalArgumentException("Search limits must allow at least one node");
+        }
+        if (incrementMillis < 0 || movesToGo < 0) {
+            throw new IllegalArgumentException("Increment and moves to go can't be negative");
+        }
+        this.depth = Math.min(depth, MAX_DEPTH);
+        this.nodes = nodes;
+        this.timeMillis = timeMillis;
+        this.clockMillis = clockMillis;
+        this.incrementMillis = incrementMillis;
+        this.movesToGo = movesToGo;
+    }
+
+    /**
+     * @return limits that only cap the depth
+     */
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * @return limits that only cap the number of nodes
+     */
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(MAX_DEPTH, nodes, Long.MAX_VALUE);
+    }
+
+    /**
+     * @return limits that only cap the time spent
+     */
+    public static SearchLimits time(long timeMillis) {
+        return new SearchLimits(MAX_DEPTH, Long.MAX_VALUE, timeMillis);
+    }
+
+    /**
+     * @return limits that play from a game clock
+     */
+    public static SearchLimits clock(long clockMillis, long incrementMillis, int movesToGo) {
+        return new SearchLimits(
+                MAX_DEPTH, Long.MAX_VALUE, Long.MAX_VALUE, clockMillis, incrementMillis, movesToGo
+        );
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    public long getClockMillis() {
+        return clockMillis;
+    }
+
+    public long getIncrementMillis() {
+        return incrementMillis;
+    }
+
+    public int getMovesToGo() {
+        return movesToGo;
+    }
+
+    /**
+     * @return whether the limits include a game clock
+     */
+    public boolean hasClock() {
+        return clockMillis != Long.MAX_VALUE;
+    }
+}
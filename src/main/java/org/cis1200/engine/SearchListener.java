@@ -0,0 +1,16 @@
+package org.cis1200.engine;
+
+/**
+ * Told about a search's progress, e.g. to print it. Called on the searching
+ * thread, so it should return quickly.
+ */
+@FunctionalInterface
+public interface SearchListener {
+    /**
+     * Called each time an iteration of iterative deepening completes.
+     *
+     * @param result the best move, score and line found so far, with the
+     *               nodes and time spent up to now
+     */
+    void iterationCompleted(SearchResult result);
+}
@@ -0,0 +1,93 @@
+package org.cis1200.engine;
+
+import java.util.Arrays;
+
+import org.cis1200.bitboard.Move;
+
+/**
+ * The outcome of a search: the best move and score of the deepest completed
+ * iteration, with the line of play that leads to that score.
+ */
+public class SearchResult {
+    private final int bestMove;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long timeMillis;
+    private final int[] principalVariation;
+    private final SearchStatistics statistics;
+
+    public SearchResult(
+            int bestMove, int score, int depth, long nodes, long timeMillis,
+            int[] principalVariation, SearchStatistics statistics
+    ) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.timeMillis = timeMillis;
+        this.principalVariation = Arrays.copyOf(principalVariation, principalVariation.length);
+        this.statistics = statistics;
+    }
+
+    /**
+     * @return the packed best move (see {@link Move}), or {@link Move#NONE} if
+     *         the side to move has no legal moves
+     */
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    /**
+     * @return the score in centipawns from the side to move's point of view;
+     *         see {@link Search#isMateScore(int)} for mate scores
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return the depth of the deepest completed iteration
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    /**
+     * @return the expected line of play, starting with the best move
+     */
+    public int[] getPrincipalVariation() {
+        return Arrays.copyOf(principalVariation, principalVariation.length);
+    }
+
+    /**
+     * @return how often each selective part of the search took effect
+     */
+    public SearchStatistics getStatistics() {
+        return statistics;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("depth ").append(depth);
+        if (Search.isMateScore(score)) {
+            sb.append(" score mate ").append(Search.mateIn(score));
+        } else {
+            sb.append(" score cp ").append(score);
+        }
+        sb.append(" nodes ").append(nodes).append(" time ").append(timeMillis).append(" pv");
+        for (int move : principalVariation) {
+            sb.append(' ').append(Move.toString(move));
+        }
+        return sb.toString();
+    }
+}
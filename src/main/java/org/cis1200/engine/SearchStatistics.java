@@ -0,0 +1,63 @@
+package org.cis1200.engine;
+
+/**
+ * Counts of how often each {@link SearchFeature} took effect during a search,
+ * and how often its guess proved wrong and part of the tree had to be
+ * searched again.
+ */
+public class SearchStatistics {
+    private static final SearchFeature[] FEATURES = SearchFeature.values();
+
+    private final long[] uses = new long[FEATURES.length];
+    private final long[] researches = new long[FEATURES.length];
+
+    /**
+     * @return how many times the feature pruned, reduced or extended a node,
+     *         or narrowed the root window
+     */
+    public long getUses(SearchFeature feature) {
+        return uses[feature.ordinal()];
+    }
+
+    /**
+     * @return how many times a node searched with the feature's narrower
+     *         window or reduced depth had to be searched again
+     */
+    public long getResearches(SearchFeature feature) {
+        return researches[feature.ordinal()];
+    }
+
+    void recordUse(SearchFeature feature) {
+        uses[feature.ordinal()]++;
+    }
+
+    void recordResearch(SearchFeature feature) {
+        researches[feature.ordinal()]++;
+    }
+
+    /**
+     * Adds another search's counts to these, e.g. to total the workers of a
+     * parallel search.
+     */
+    void add(SearchStatistics other) {
+        for (int i = 0; i < FEATURES.length; i++) {
+            uses[i] += other.uses[i];
+            researches[i] += other.researches[i];
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (SearchFeature feature : FEATURES) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(feature.name().toLowerCase()).append(' ').append(getUses(feature));
+            if (getResearches(feature) > 0) {
+                sb.append(" (").append(getResearches(feature)).append(" re-searched)");
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,131 @@
+package org.cis1200.engine;
+
+import org.cis1200.bitboard.Move;
+import org.cis1200.bitboard.Position;
+
+/**
+ * Static exchange evaluation: the material a capture wins or loses once both
+ * sides have made every recapture on its square that pays, worked out from
+ * the attack tables without making any moves.
+ *
+ * Each side recaptures with its least valuable attacker and may stop whenever
+ * carrying on would lose material. Removing a capturer from the occupancy
+ * uncovers any slider behind it (an x-ray), so batteries count. Pins are
+ * ignored, and a king only captures if the other side has nothing left to
+ * take it with.
+ *
+ * Values are {@link Evaluation#pieceValue(int)}, i.e. Piece.pieceValues in
+ * centipawns.
+ */
+public final class StaticExchange {
+
+    private StaticExchange() {
+    }
+
+    /**
+     * Evaluates the exchange a move starts on its target square. The move may
+     * be for either side; the piece on its origin square decides which. A
+     * pawn reaching the last rank promotes to the move's promotion piece, or a
+     * queen if it has none.
+     *
+     * @param position the position the move is made in
+     * @param move     the move, e.g. from {@link Move#of(int, int)}
+     * @return the material the moving side gains (negative if it loses)
+     */
+    public static int see(Position position, int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int piece = position.getPieceAt(from);
+        if (piece == Position.NO_PIECE) {
+            return 0;
+        }
+        int us = Position.colorOf(piece);
+        int type = Position.typeOf(piece);
+
+        long occupied = position.getOccupied() & ~(1L << from);
+        int gain = capturedValue(position, from, to);
+        if (type == Position.PAWN && to == position.getEnPassantSquare()) {
+            occupied &= ~(1L << (us == Position.WHITE ? to - 8 : to + 8));
+        }
+        if (type == Position.PAWN && (Position.rankOf(to) == 7 || Position.rankOf(to) == 0)) {
+            type = Move.isPromotion(move) ? Move.promotion(move) : Position.QUEEN;
+            gain += Evaluation.pieceValue(type) - Evaluation.pieceValue(Position.PAWN);
+        }
+        // as for recaptures, a king can't take a piece that is still defended
+        if (type == Position.KING
+                && (position.attackersTo(to, occupied) & occupied
+                        & position.getOccupancy(1 - us)) != 0) {
+            return 0;
+        }
+        return gain - exchange(position, to, occupied | (1L << to), 1 - us, type);
+    }
+
+    /**
+     * Checks whether a move's exchange gains at least a threshold. Cheaper
+     * than comparing {@link #see(Position, int)} when the answer is obvious
+     * from the victim and the moving piece alone.
+     *
+     * @param position  the position the move is made in
+     * @param move      the move
+     * @param threshold the least material the move must gain
+     * @return whether {@code see(position, move) >= threshold}
+     */
+    public static boolean seeGreaterOrEqual(Position position, int move, int threshold) {
+        int from = Move.from(move);
+        int piece = position.getPieceAt(from);
+        if (piece != Position.NO_PIECE && Position.typeOf(piece) != Position.PAWN) {
+            int victim = capturedValue(position, from, Move.to(move));
+            // even taking the whole victim for free isn't enough
+            if (victim < threshold) {
+                return false;
+            }
+            // even losing the capturer straight back is enough
+            if (victim - Evaluation.pieceValue(Position.typeOf(piece)) >= threshold
+                    && Position.typeOf(piece) != Position.KING) {
+                return true;
+            }
+        }
+        return see(position, move) >= threshold;
+    }
+
+    /**
+     * @return what the side to recapture gains on a square holding a piece of
+     *         the given type, never less than 0 since it may decline
+     */
+    private static int exchange(Position position, int square, long occupied, int side, int onSquare) {
+        long attackers = position.attackersTo(square, occupied) & occupied;
+        long ours = attackers & position.getOccupancy(side);
+        if (ours == 0) {
+            return 0;
+        }
+        int type = leastValuable(position, ours, side);
+        // a king can't take a piece that is still defended
+        if (type == Position.KING && (attackers & position.getOccupancy(1 - side)) != 0) {
+            return 0;
+        }
+        long attacker = ours & position.getPieces(side, type);
+        occupied &= ~(attacker & -attacker);
+        int gain = Evaluation.pieceValue(onSquare)
+                - exchange(position, square, occupied, 1 - side, type);
+        return Math.max(0, gain);
+    }
+
+    private static int leastValuable(Position position, long attackers, int side) {
+        for (int type = Position.PAWN; type <= Position.KING; type++) {
+            if ((attackers & position.getPieces(side, type)) != 0) {
+                return type;
+            }
+        }
+        throw new IllegalStateException("No attacker in a non-empty set");
+    }
+
+    private static int capturedValue(Position position, int from, int to) {
+        int victim = position.getPieceAt(to);
+        if (victim != Position.NO_PIECE) {
+            return Evaluation.pieceValue(Position.typeOf(victim));
+        }
+        boolean isPawn = Position.typeOf(position.getPieceAt(from)) == Position.PAWN;
+        return isPawn && to == position.getEnPassantSquare() ? Evaluation.pieceValue(Position.PAWN)
+                : 0;
+    }
+}
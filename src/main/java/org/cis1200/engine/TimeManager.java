@@ -0,0 +1,161 @@
+package org.cis1200.engine;
+
+/**
+ * Decides how long one move's search may take.
+ *
+ * From a game clock it works out two budgets. The soft limit is the time the
+ * move should normally take: the time left shared over the moves still to
+ * play, plus most of the increment. Iterative deepening checks it between
+ * iterations only, stretching it while the best move keeps changing or the
+ * score is falling, and shrinking it once the best move has settled. The
+ * hard limit is a few times the soft one, capped well short of the clock, and
+ * ends the search even mid-iteration.
+ *
+ * The hard limit is only compared with the clock when {@link #isHardLimitReached()}
+ * is called, so a search polls it every so many nodes rather than reading the
+ * clock per node.
+ *
+ * A fixed time per move sets both limits to that time; without either, the
+ * search is never stopped by time.
+ */
+public class TimeManager {
+    // Kept back from the clock for the time spent outside the search
+    // (communication, garbage collection)
+    private static final long MOVE_OVERHEAD_MILLIS = 30;
+
+    // Moves the rest of the game is assumed to take without moves to go:
+    // many early on, falling to a floor later
+    private static final int MAX_MOVES_LEFT = 50;
+    private static final int MIN_MOVES_LEFT = 20;
+
+    // The hard limit as a multiple of the soft limit, and at most this share
+    // of the clock (unless the next time control is one move away)
+    private static final int HARD_FACTOR = 4;
+    private static final int HARD_CLOCK_DIVISOR = 3;
+
+    // A score this many centipawns below the last iteration's doubles the
+    // budget
+    private static final int SCORE_DROP_SCALE = 100;
+
+    private final long startNanos;
+    private final long softMillis;
+    private final long hardMillis;
+    private final long hardDeadline;
+    private final boolean adaptive;
+
+    private int lastBestMove;
+    private int lastScore;
+    private boolean haveLast;
+    // Decaying count of best move changes between iterations
+    private double bestMoveChanges;
+
+    /**
+     * Creates a time manager for a search starting now.
+     *
+     * @param limits         the search limits, with the clock if there is one
+     * @param fullMoveNumber the current move number, to guess how many moves
+     *                       are left when the limits don't say
+     */
+    public TimeManager(SearchLimits limits, int fullMoveNumber) {
+        this(limits, fullMoveNumber, System.nanoTime());
+    }
+
+    /**
+     * Creates a time manager for a search that started at a given time.
+     *
+     * @param limits         the search limits, with the clock if there is one
+     * @param fullMoveNumber the current move number
+     * @param startNanos     when the search started, by {@link System#nanoTime()}
+     */
+    public TimeManager(SearchLimits limits, int fullMoveNumber, long startNanos) {
+        this.startNanos = startNanos;
+        long soft = Long.MAX_VALUE;
+        long hard = Long.MAX_VALUE;
+        if (limits.hasClock()) {
+            long available = Math.max(1, limits.getClockMillis() - MOVE_OVERHEAD_MILLIS);
+            int movesLeft = limits.getMovesToGo() > 0 ? Math.min(limits.getMovesToGo(), MAX_MOVES_LEFT)
+                    : Math.max(MIN_MOVES_LEFT, MAX_MOVES_LEFT - fullMoveNumber / 2);
+            soft = available / movesLeft + limits.getIncrementMillis() * 3 / 4;
+            long cap = movesLeft == 1 ? available * 9 / 10 : available / HARD_CLOCK_DIVISOR;
+            hard = Math.max(1, Math.min(soft * HARD_FACTOR, cap));
+            soft = Math.max(1, Math.min(soft, hard));
+        }
+        if (limits.getTimeMillis() != Long.MAX_VALUE) {
+            soft = Math.min(soft, limits.getTimeMillis());
+            hard = Math.min(hard, limits.getTimeMillis());
+        }
+        this.softMillis = soft;
+        this.hardMillis = hard;
+        this.hardDeadline = hard == Long.MAX_VALUE ? Long.MAX_VALUE
+                : startNanos + hard * 1_000_000L;
+        // a fixed time per move is meant to be used up
+        this.adaptive = limits.hasClock();
+    }
+
+    /**
+     * @return the time a move normally takes in milliseconds, before
+     *         adjusting for stability, or {@code Long.MAX_VALUE}
+     */
+    public long getSoftMillis() {
+        return softMillis;
+    }
+
+    /**
+     * @return the most time the search may take in milliseconds, or
+     *         {@code Long.MAX_VALUE}
+     */
+    public long getHardMillis() {
+        return hardMillis;
+    }
+
+    /**
+     * Reads the clock, so call it every so many nodes rather than every node.
+     *
+     * @return whether the search must stop now
+     */
+    public boolean isHardLimitReached() {
+        return hardDeadline != Long.MAX_VALUE && System.nanoTime() >= hardDeadline;
+    }
+
+    /**
+     * Called when an iteration completes to decide whether to start another.
+     * An iteration usually takes longer than all the earlier ones together,
+     * so none is started once half the adjusted budget is gone.
+     *
+     * @param bestMove the iteration's best move
+     * @param score    the iteration's score
+     * @return whether to stop iterating and play the best move
+     */
+    public boolean shouldStopIterating(int bestMove, int score) {
+        return shouldStopIterating(bestMove, score, System.nanoTime());
+    }
+
+    /**
+     * Like {@link #shouldStopIterating(int, int)}, at a given time.
+     *
+     * @param nowNanos the current time, by {@link System#nanoTime()}
+     */
+    public boolean shouldStopIterating(int bestMove, int score, long nowNanos) {
+        double scale = 1.0;
+        if (haveLast) {
+            bestMoveChanges = bestMoveChanges / 2 + (bestMove != lastBestMove ? 1 : 0);
+            // from 0.7 with a settled move up to 1.9 when it changes every time
+            scale = 0.7 + 0.6 * bestMoveChanges;
+            int drop = Math.max(0, Math.min(lastScore - score, SCORE_DROP_SCALE));
+            scale *= 1.0 + (double) drop / SCORE_DROP_SCALE;
+        }
+        lastBestMove = bestMove;
+        lastScore = score;
+        haveLast = true;
+
+        long elapsedMillis = (nowNanos - startNanos) / 1_000_000L;
+        if (elapsedMillis >= hardMillis) {
+            return true;
+        }
+        if (!adaptive) {
+            return false;
+        }
+        double budget = Math.min(softMillis * scale, hardMillis);
+        return elapsedMillis >= budget / 2;
+    }
+}
@@ -0,0 +1,205 @@
+package org.cis1200.engine;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size hash table of search results keyed by Zobrist hash, shared by
+ * any number of search threads without locking.
+ *
+ * Entries are two longs in one preallocated array: the key XORed with the
+ * data, then the data. A reader recomputes the key from both halves, so an
+ * entry torn by two threads writing at once simply fails to match instead of
+ * returning another position's result. Entries are grouped in buckets of
+ * four (one 64 byte cache line). A store goes to the entry already holding
+ * the position if there is one, otherwise it evicts the entry whose result is
+ * worth least: shallow, and from an older search.
+ *
+ * The data is packed as:
+ * <pre>
+ * bits  0-18  best move (see org.cis1200.bitboard.Move)
+ * bits 19-34  score (signed 16 bit)
+ * bits 35-42  depth
+ * bits 43-44  bound type
+ * bits 45-52  generation of the search that stored it
+ * </pre>
+ * A zero data word means an empty entry; every stored entry has a non-zero
+ * bound type.
+ */
+public class TranspositionTable {
+    /** The score is at most the stored score (no move raised alpha). */
+    public static final int UPPER_BOUND = 1;
+    /** The score is at least the stored score (a move failed high). */
+    public static final int LOWER_BOUND = 2;
+    /** The stored score is exact. */
+    public static final int EXACT = 3;
+
+    private static final int ENTRY_LONGS = 2;
+    private static final int BUCKET_ENTRIES = 4;
+    private static final int BUCKET_LONGS = ENTRY_LONGS * BUCKET_ENTRIES;
+
+    private static final int SCORE_SHIFT = 19;
+    private static final int DEPTH_SHIFT = 35;
+    private static final int BOUND_SHIFT = 43;
+    private static final int GENERATION_SHIFT = 45;
+    private static final int MOVE_MASK = (1 << SCORE_SHIFT) - 1;
+    private static final int GENERATION_MASK = 0xFF;
+    private static final int MAX_DEPTH = 0xFF;
+
+    private final long[] table;
+    private final long bucketMask;
+    private int generation;
+
+    /**
+     * Creates a table using at most the given amount of memory. The bucket
+     * count is rounded down to a power of two.
+     *
+     * @param megabytes the size of the table in megabytes
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("Transposition table needs at least 1 MB");
+        }
+        long buckets = Long.highestOneBit((long) megabytes * 1024 * 1024 / (BUCKET_LONGS * 8));
+        // a Java array holds at most 2^31 - 1 longs
+        buckets = Math.min(buckets, 1L << 27);
+        this.table = new long[(int) (buckets * BUCKET_LONGS)];
+        this.bucketMask = buckets - 1;
+    }
+
+    /**
+     * @return the number of entries the table can hold
+     */
+    public int capacity() {
+        return table.length / ENTRY_LONGS;
+    }
+
+    /**
+     * Empties the table.
+     */
+    public void clear() {
+        Arrays.fill(table, 0L);
+        generation = 0;
+    }
+
+    /**
+     * Marks the start of a new search, so entries from earlier searches are
+     * replaced first.
+     */
+    public void newSearch() {
+        generation = (generation + 1) & GENERATION_MASK;
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param key the position's Zobrist hash
+     * @return the packed entry data, or 0 if the position isn't stored
+     */
+    public long probe(long key) {
+        int base = bucketIndex(key);
+        for (int i = base; i < base + BUCKET_LONGS; i += ENTRY_LONGS) {
+            long data = table[i + 1];
+            if (data != 0 && (table[i] ^ data) == key) {
+                return data;
+            }
+        }
+        return 0L;
+    }
+
+    /**
+     * Stores a search result.
+     *
+     * @param key   the position's Zobrist hash
+     * @param move  the best move found, or 0 to keep any stored move
+     * @param score the score, already adjusted for mate distance
+     * @param depth the depth searched
+     * @param bound one of {@link #UPPER_BOUND}, {@link #LOWER_BOUND} or
+     *              {@link #EXACT}
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int base = bucketIndex(key);
+        int target = base;
+        int worstValue = Integer.MAX_VALUE;
+        for (int i = base; i < base + BUCKET_LONGS; i += ENTRY_LONGS) {
+            long data = table[i + 1];
+            if (data == 0) {
+                target = i;
+                break;
+            }
+            if ((table[i] ^ data) == key) {
+                // a much deeper result for the same position is worth more
+                // than a shallow bound
+                if (bound != EXACT && depth(data) > depth + 2 && age(data) == 0) {
+                    return;
+                }
+                // keep the old best move rather than forgetting it
+                if (move == 0) {
+                    move = move(data);
+                }
+                target = i;
+                break;
+            }
+            int value = depth(data) - 8 * age(data);
+            if (value < worstValue) {
+                worstValue = value;
+                target = i;
+            }
+        }
+
+        long data = (move & MOVE_MASK)
+                | ((long) (score & 0xFFFF) << SCORE_SHIFT)
+                | ((long) Math.min(Math.max(depth, 0), MAX_DEPTH) << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT)
+                | ((long) generation << GENERATION_SHIFT);
+        table[target] = key ^ data;
+        table[target + 1] = data;
+    }
+
+    /**
+     * @return roughly how full the table is in permille, sampled from the
+     *         first thousand entries, counting only the current search
+     */
+    public int hashfull() {
+        int sample = Math.min(1000, capacity());
+        int used = 0;
+        for (int i = 0; i < sample; i++) {
+            long data = table[i * ENTRY_LONGS + 1];
+            if (data != 0 && generation(data) == generation) {
+                used++;
+            }
+        }
+        return used * 1000 / sample;
+    }
+
+    public static int move(long data) {
+        return (int) data & MOVE_MASK;
+    }
+
+    public static int score(long data) {
+        return (short) (data >>> SCORE_SHIFT);
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & MAX_DEPTH;
+    }
+
+    public static int bound(long data) {
+        return (int) (data >>> BOUND_SHIFT) & 3;
+    }
+
+    private static int generation(long data) {
+        return (int) (data >>> GENERATION_SHIFT) & GENERATION_MASK;
+    }
+
+    /**
+     * @return how many searches ago the entry was stored
+     */
+    private int age(long data) {
+        return (generation - generation(data)) & GENERATION_MASK;
+    }
+
+    private int bucketIndex(long key) {
+        // the low bits pick the bucket, the whole key is checked on probe
+        return (int) (key & bucketMask) * BUCKET_LONGS;
+    }
+}
@@ -0,0 +1,248 @@
+package org.cis1200.perft;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.cis1200.Board;
+import org.cis1200.bitboard.Move;
+import org.cis1200.bitboard.MoveList;
+import org.cis1200.bitboard.Position;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth ("perft").
+ * The counts for well known positions are published, so this is both a
+ * correctness check for move generation and a throughput benchmark.
+ *
+ * Root moves are split across a ForkJoinPool, each worker searching its own
+ * copy of the position. Subtree counts can be cached by position hash, which
+ * pays off heavily because perft trees are full of transpositions.
+ */
+public class Perft {
+    private static final String STARTING_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    // Deepest search the per-thread move list buffers are sized for
+    private static final int MAX_DEPTH = 32;
+
+    private final int threads;
+    private final Cache cache;
+
+    /**
+     * Creates a perft runner.
+     *
+     * @param threads number of worker threads to split root moves across
+     * @param hashMb  size of the subtree count cache in megabytes, or 0 for no
+     *                cache
+     */
+    public Perft(int threads, int hashMb) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Perft needs at least one thread");
+        }
+        this.threads = threads;
+        this.cache = hashMb > 0 ? new Cache(hashMb) : null;
+    }
+
+    /**
+     * Counts the leaf nodes below a position.
+     *
+     * @param root  the position to start from (not modified)
+     * @param depth the number of plies to search
+     * @return the number of leaf nodes
+     */
+    public long count(Position root, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        long total = 0;
+        for (long nodes : divide(root, depth).values()) {
+            total += nodes;
+        }
+        return total;
+    }
+
+    /**
+     * Counts the leaf nodes below each legal root move.
+     *
+     * @param root  the position to start from (not modified)
+     * @param depth the number of plies to search, at least 1
+     * @return the count for each packed root move, in generation order
+     */
+    public Map<Integer, Long> divide(Position root, int depth) {
+        if (depth < 1 || depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Perft depth must be between 1 and " + MAX_DEPTH);
+        }
+        Position position = new Position(root);
+        MoveList rootMoves = new MoveList();
+        position.generateLegalMoves(rootMoves);
+
+        List<RootMoveTask> tasks = new ArrayList<>();
+        for (int i = 0; i < rootMoves.size(); i++) {
+            tasks.add(new RootMoveTask(position, rootMoves.get(i), depth - 1));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            for (RootMoveTask task : tasks) {
+                pool.execute(task);
+            }
+            Map<Integer, Long> counts = new LinkedHashMap<>();
+            for (RootMoveTask task : tasks) {
+                counts.put(task.move, task.join());
+            }
+            return counts;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Counts leaf nodes with bulk counting at the last ply and cache lookups
+     * for interior nodes.
+     */
+    private long search(Position position, int depth, MoveList[] lists) {
+        if (depth == 0) {
+            return 1;
+        }
+
+        long key = 0L;
+        if (cache != null && depth > 1) {
+            key = Cache.key(position.getHash(), depth);
+            long cached = cache.probe(key);
+            if (cached >= 0) {
+                return cached;
+            }
+        }
+
+        MoveList moves = lists[depth];
+        moves.clear();
+        position.generateLegalMoves(moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            position.makeMove(moves.get(i));
+            nodes += search(position, depth - 1, lists);
+            position.unmakeMove();
+        }
+
+        if (cache != null) {
+            cache.store(key, nodes);
+        }
+        return nodes;
+    }
+
+    /**
+     * Searches the subtree under one root move on its own copy of the position.
+     */
+    private class RootMoveTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final Position position;
+        private final int move;
+        private final int depth;
+
+        RootMoveTask(Position root, int move, int depth) {
+            this.position = new Position(root);
+            this.move = move;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            MoveList[] lists = new MoveList[depth + 1];
+            for (int i = 0; i <= depth; i++) {
+                lists[i] = new MoveList();
+            }
+            position.makeMove(move);
+            return search(position, depth, lists);
+        }
+    }
+
+    /**
+     * Fixed-size table of subtree counts shared by all workers. Each slot
+     * stores (key ^ count, count) so that a slot torn by two threads writing at
+     * once fails the key check instead of returning a wrong count.
+     */
+    private static final class Cache {
+        private final long[] table;
+        private final long mask;
+
+        Cache(int megabytes) {
+            long entries = Long.highestOneBit(Math.max(1L, megabytes * 1024L * 1024L / 16));
+            this.table = new long[(int) Math.min(entries * 2, 1 << 30)];
+            this.mask = table.length / 2 - 1;
+        }
+
+        static long key(long hash, int depth) {
+            return hash ^ (0x9E3779B97F4A7C15L * depth);
+        }
+
+        long probe(long key) {
+            int index = (int) (key & mask) * 2;
+            long count = table[index + 1];
+            return (table[index] ^ count) == key ? count : -1;
+        }
+
+        void store(long key, long count) {
+            int index = (int) (key & mask) * 2;
+            table[index] = key ^ count;
+            table[index + 1] = count;
+        }
+    }
+
+    /**
+     * Runs perft from the command line.
+     *
+     * Usage: Perft [--fen FEN] [--depth N] [--divide] [--threads N] [--hash MB]
+     */
+    public static void main(String[] args) {
+        String fen = STARTING_POSITION;
+        int depth = 5;
+        boolean divide = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int hashMb = 64;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--fen" -> fen = args[++i];
+                case "--depth" -> depth = Integer.parseInt(args[++i]);
+                case "--divide" -> divide = true;
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--hash" -> hashMb = Integer.parseInt(args[++i]);
+                default -> {
+                    System.err.println(
+                            "Usage: Perft [--fen FEN] [--depth N] [--divide] [--threads N] [--hash MB]"
+                    );
+                    System.exit(1);
+                }
+            }
+        }
+
+        Position position = Board.FENtoBoard(fen).getPosition();
+        Perft perft = new Perft(threads, hashMb);
+
+        long start = System.nanoTime();
+        long nodes = 0;
+        for (Map.Entry<Integer, Long> entry : perft.divide(position, depth).entrySet()) {
+            if (divide) {
+                System.out.println(Move.toString(entry.getKey()) + ": " + entry.getValue());
+            }
+            nodes += entry.getValue();
+        }
+        long elapsedNanos = Math.max(1, System.nanoTime() - start);
+
+        if (divide) {
+            System.out.println();
+        }
+        System.out.println("Nodes searched: " + nodes);
+        System.out.println(
+                "Time: " + elapsedNanos / 1_000_000 + " ms ("
+                        + (long) (nodes * 1e9 / elapsedNanos) + " nps)"
+        );
+    }
+}
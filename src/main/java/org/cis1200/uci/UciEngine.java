@@ -0,0 +1,387 @@
+package org.cis1200.uci;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+
+import org.cis1200.Board;
+import org.cis1200.bitboard.Move;
+import org.cis1200.bitboard.MoveList;
+import org.cis1200.bitboard.Notation;
+import org.cis1200.bitboard.Position;
+import org.cis1200.engine.ParallelSearch;
+import org.cis1200.engine.Search;
+import org.cis1200.engine.SearchLimits;
+import org.cis1200.engine.SearchResult;
+
+/**
+ * A headless front end speaking the Universal Chess Interface, so the engine
+ * can be run by match managers and analysis tools.
+ *
+ * Commands are read from one stream and replies written to another. A
+ * {@code go} searches on a background thread so that {@code stop},
+ * {@code isready} and {@code quit} are answered while it runs; an
+ * {@code info} line is written after every completed iteration and
+ * {@code bestmove} when the search ends. Commands that change the engine
+ * ({@code position}, {@code ucinewgame}, {@code setoption}, another
+ * {@code go}) first wait for a running search to finish, or stop it if it
+ * is an infinite one. Unknown commands
+ * and malformed arguments are reported as {@code info string} lines and
+ * otherwise ignored.
+ */
+public class UciEngine {
+    private static final String NAME = "CIS 1200 Chess";
+    private static final String AUTHOR = "CIS 1200";
+    private static final String STARTING_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final int MAX_HASH_MB = 4096;
+    private static final int MAX_THREADS = 256;
+
+    private final BufferedReader in;
+    private final PrintStream out;
+
+    private int hashMb = Search.DEFAULT_HASH_MB;
+    private int threads = 1;
+    private ParallelSearch search = new ParallelSearch(threads, hashMb);
+    private Position position = Board.FENtoBoard(STARTING_POSITION).getPosition();
+
+    private Thread searchThread;
+    // Released by stop, so an infinite search knows it may report its move
+    private CountDownLatch stopSignal = new CountDownLatch(0);
+
+    /**
+     * Creates an engine talking over the given streams.
+     *
+     * @param in  where commands come from
+     * @param out where replies go
+     */
+    public UciEngine(InputStream in, OutputStream out) {
+        this.in = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.out = new PrintStream(out, true, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Runs the engine on standard input and output.
+     */
+    public static void main(String[] args) {
+        new UciEngine(System.in, System.out).run();
+    }
+
+    /**
+     * Reads and answers commands until {@code quit} or the end of the input.
+     * {@code quit} stops a running search. At the end of the input an
+     * infinite search is stopped and one with a limit is left to finish, so
+     * piped commands still get a searched move.
+     */
+    public void run() {
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!handle(line.trim())) {
+                    stopSearch();
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            // treat a broken input like the end of it
+        }
+        waitForSearch();
+    }
+
+    /**
+     * Answers one command.
+     *
+     * @return false once the engine should quit
+     */
+    private boolean handle(String line) {
+        if (line.isEmpty()) {
+            return true;
+        }
+        String[] tokens = line.split("\\s+");
+        try {
+            switch (tokens[0]) {
+                case "uci" -> {
+                    out.println("id name " + NAME);
+                    out.println("id author " + AUTHOR);
+                    out.println("option name Hash type spin default " + Search.DEFAULT_HASH_MB
+                            + " min 1 max " + MAX_HASH_MB);
+                    out.println("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+                    out.println("uciok");
+                }
+                case "isready" -> out.println("readyok");
+                case "ucinewgame" -> {
+                    waitForSearch();
+                    search.getTranspositionTable().clear();
+                    position = Board.FENtoBoard(STARTING_POSITION).getPosition();
+                }
+                case "setoption" -> setOption(tokens);
+                case "position" -> setPosition(tokens);
+                case "go" -> go(tokens);
+                case "stop" -> stopSearch();
+                case "quit" -> {
+                    return false;
+                }
+                default -> out.println("info string Unknown command: " + tokens[0]);
+            }
+        } catch (IllegalArgumentException e) {
+            // also covers NumberFormatException
+            out.println("info string Ignored '" + line + "': " + e.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * Handles {@code setoption name <name> value <value>} for Hash and
+     * Threads, rebuilding the search with the new size.
+     */
+    private void setOption(String[] tokens) {
+        String name = valueAfter(tokens, "name");
+        String value = valueAfter(tokens, "value");
+        if (name == null || value == null) {
+            throw new IllegalArgumentException("expected name and value");
+        }
+        waitForSearch();
+        switch (name.toLowerCase()) {
+            case "hash" -> hashMb = clamp(Integer.parseInt(value), 1, MAX_HASH_MB);
+            case "threads" -> threads = clamp(Integer.parseInt(value), 1, MAX_THREADS);
+            default -> throw new IllegalArgumentException("no option " + name);
+        }
+        search = new ParallelSearch(threads, hashMb);
+    }
+
+    /**
+     * Handles {@code position startpos|fen <fen> [moves <move>...]}. The moves
+     * are played on the position so that the search sees repetitions.
+     */
+    private void setPosition(String[] tokens) {
+        if (tokens.length < 2) {
+            throw new IllegalArgumentException("expected startpos or fen");
+        }
+        int index;
+        String fen;
+        if (tokens[1].equals("startpos")) {
+            fen = STARTING_POSITION;
+            index = 2;
+        } else if (tokens[1].equals("fen")) {
+            StringBuilder sb = new StringBuilder();
+            index = 2;
+            while (index < tokens.length && !tokens[index].equals("moves")) {
+                sb.append(sb.length() == 0 ? "" : " ").append(tokens[index++]);
+            }
+            fen = sb.toString();
+            // the clocks are optional in some tools' FENs
+            int fields = fen.isEmpty() ? 0 : fen.split(" ").length;
+            if (fields == 4) {
+                fen += " 0 1";
+            }
+        } else {
+            throw new IllegalArgumentException("expected startpos or fen");
+        }
+
+        Position next = Board.FENtoBoard(fen).getPosition();
+        if (index < tokens.length && tokens[index].equals("moves")) {
+            MoveList moves = new MoveList();
+            for (index++; index < tokens.length; index++) {
+                int move = Notation.parse(next, tokens[index], moves);
+                if (move == Move.NONE) {
+                    throw new IllegalArgumentException("illegal move " + tokens[index]);
+                }
+                next.makeMove(move);
+            }
+        }
+        waitForSearch();
+        position = next;
+    }
+
+    /**
+     * Handles {@code go} with depth, nodes, movetime, wtime, btime, winc,
+     * binc, movestogo and infinite, starting the search in the background.
+     * Without a depth, node count, move time or clock for the side to move
+     * the search could never end by itself, so it is treated as infinite.
+     */
+    private void go(String[] tokens) {
+        int depth = SearchLimits.MAX_DEPTH;
+        long nodes = Long.MAX_VALUE;
+        long moveTime = Long.MAX_VALUE;
+        long[] clock = { Long.MAX_VALUE, Long.MAX_VALUE };
+        long[] increment = { 0, 0 };
+        int movesToGo = 0;
+        boolean infinite = false;
+        for (int i = 1; i < tokens.length; i++) {
+            switch (tokens[i]) {
+                case "depth" -> depth = Integer.parseInt(argument(tokens, ++i));
+                case "nodes" -> nodes = Long.parseLong(argument(tokens, ++i));
+                case "movetime" -> moveTime = Long.parseLong(argument(tokens, ++i));
+                case "wtime" -> clock[Position.WHITE] = Math.max(
+                        0, Long.parseLong(argument(tokens, ++i))
+                );
+                case "btime" -> clock[Position.BLACK] = Math.max(
+                        0, Long.parseLong(argument(tokens, ++i))
+                );
+                case "winc" -> increment[Position.WHITE] = Long.parseLong(argument(tokens, ++i));
+                case "binc" -> increment[Position.BLACK] = Long.parseLong(argument(tokens, ++i));
+                case "movestogo" -> movesToGo = Integer.parseInt(argument(tokens, ++i));
+                case "infinite" -> infinite = true;
+                default -> {
+                    // ponder, searchmoves and mate aren't supported
+                }
+            }
+        }
+        int us = position.getSideToMove();
+        if (depth == SearchLimits.MAX_DEPTH && nodes == Long.MAX_VALUE
+                && moveTime == Long.MAX_VALUE && clock[us] == Long.MAX_VALUE) {
+            infinite = true;
+        }
+        SearchLimits limits = new SearchLimits(
+                depth, nodes, moveTime, infinite ? Long.MAX_VALUE : clock[us], increment[us],
+                movesToGo
+        );
+
+        waitForSearch();
+        Position root = new Position(position);
+        ParallelSearch current = search;
+        // read here so that a stop arriving before the thread gets going counts
+        int stopsBefore = current.getStopRequests();
+        CountDownLatch stopped = new CountDownLatch(infinite ? 1 : 0);
+        stopSignal = stopped;
+        current.setListener(this::printInfo);
+        searchThread = new Thread(() -> {
+            SearchResult result = current.search(root, limits, stopsBefore);
+            // an infinite search only reports its move once told to stop
+            awaitUninterruptibly(stopped);
+            printBestMove(result);
+        }, "uci-search");
+        searchThread.start();
+    }
+
+    private void printInfo(SearchResult result) {
+        StringBuilder sb = new StringBuilder("info depth ").append(result.getDepth());
+        if (Search.isMateScore(result.getScore())) {
+            sb.append(" score mate ").append(Search.mateIn(result.getScore()));
+        } else {
+            sb.append(" score cp ").append(result.getScore());
+        }
+        long time = result.getTimeMillis();
+        sb.append(" nodes ").append(result.getNodes())
+                .append(" nps ").append(result.getNodes() * 1000 / Math.max(1, time))
+                .append(" time ").append(time)
+                .append(" hashfull ").append(search.getTranspositionTable().hashfull())
+                .append(" pv");
+        for (int move : result.getPrincipalVariation()) {
+            sb.append(' ').append(Move.toString(move));
+        }
+        out.println(sb);
+    }
+
+    private void printBestMove(SearchResult result) {
+        StringBuilder sb = new StringBuilder("bestmove ").append(Move.toString(result.getBestMove()));
+        int[] pv = result.getPrincipalVariation();
+        if (pv.length > 1) {
+            sb.append(" ponder ").append(Move.toString(pv[1]));
+        }
+        out.println(sb);
+    }
+
+    /**
+     * Stops a running search and waits for it to report its move.
+     */
+    private void stopSearch() {
+        stopSignal.countDown();
+        if (searchThread == null) {
+            return;
+        }
+        search.stop();
+        joinUninterruptibly(searchThread);
+        searchThread = null;
+    }
+
+    /**
+     * Waits for a running search to end by itself, e.g. at its depth limit.
+     * An infinite search never would, so it is stopped.
+     */
+    private void waitForSearch() {
+        if (searchThread == null) {
+            return;
+        }
+        if (stopSignal.getCount() > 0) {
+            stopSearch();
+            return;
+        }
+        joinUninterruptibly(searchThread);
+        searchThread = null;
+    }
+
+    /**
+     * Waits for a thread to end, or at most a time in milliseconds (0 for no
+     * limit), keeping any interrupt for later.
+     */
+    private static void joinUninterruptibly(Thread thread) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return the value of a {@code go} option at an index
+     * @throws IllegalArgumentException if the command ends before it
+     */
+    private static String argument(String[] tokens, int index) {
+        if (index >= tokens.length) {
+            throw new IllegalArgumentException("expected a value after " + tokens[index - 1]);
+        }
+        return tokens[index];
+    }
+
+    /**
+     * @return the words after a keyword up to the next keyword (name or
+     *         value), or null if the keyword is missing
+     */
+    private static String valueAfter(String[] tokens, String keyword) {
+        StringBuilder sb = null;
+        for (int i = 1; i < tokens.length; i++) {
+            if (sb == null) {
+                if (tokens[i].equals(keyword)) {
+                    sb = new StringBuilder();
+                }
+            } else if (tokens[i].equals("name") || tokens[i].equals("value")) {
+                break;
+            } else {
+                sb.append(sb.length() == 0 ? "" : " ").append(tokens[i]);
+            }
+        }
+        return sb == null || sb.length() == 0 ? null : sb.toString();
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -1,9 +1,11 @@
 package org.cis1200.util;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 import org.cis1200.Board;
+import org.cis1200.bitboard.Position;
 
 public abstract class Piece {
     public static enum Type {
@@ -104,6 +106,38 @@ public abstract class Piece {
         return this.board;
     }
 
+    /**
+     * @return the index of the piece's square in its board's bitboards
+     */
+    protected int getSquare() {
+        return Position.square(this.x, this.y);
+    }
+
+    /**
+     * @return every occupied square on the piece's board
+     */
+    protected long getOccupied() {
+        return this.board.getPosition().getOccupied();
+    }
+
+    /**
+     * Converts a bitboard of attacked squares to a list of positions, leaving
+     * out the squares held by the piece's own color.
+     * 
+     * @param attacks the attacked squares
+     * @return the positions the piece could move to
+     */
+    protected List<int[]> attacksToMoves(long attacks) {
+        long targets = attacks & ~this.board.getPosition().getOccupancy(this.color.ordinal());
+        List<int[]> moves = new ArrayList<>(Long.bitCount(targets));
+        while (targets != 0) {
+            int square = Long.numberOfTrailingZeros(targets);
+            moves.add(new int[] { Position.fileOf(square), Position.rankOf(square) });
+            targets &= targets - 1;
+        }
+        return moves;
+    }
+
     // setters
 
     /**
@@ -1,14 +1,30 @@
 package org.cis1200.chess;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.cis1200.Board;
+import org.cis1200.Fen;
+import org.cis1200.GameStatus;
+import org.cis1200.bitboard.Attacks;
+import org.cis1200.bitboard.Magics;
+import org.cis1200.bitboard.Move;
+import org.cis1200.bitboard.MoveList;
+import org.cis1200.bitboard.Notation;
+import org.cis1200.bitboard.Position;
+import org.cis1200.bitboard.PositionSnapshot;
 import org.cis1200.pieces.Queen;
 import org.cis1200.util.Piece;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -236,6 +252,79 @@ public class BoardTest {
             assertTrue(Board.isValidFEN(EN_PASSANT_EXAMPLE));
             assertTrue(Board.isValidFEN(CHECKMATE_EXAMPLE));
         }
+
+        @Test
+        void testEnPassantOnEitherSide() {
+            // black just pushed d7-d5, so white may take on d6
+            assertTrue(Board.isValidFEN("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 2"));
+            // but not before black has moved
+            assertFalse(Board.isValidFEN("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1"));
+            // a rank 3 target needs black to move
+            assertFalse(Board.isValidFEN("4k3/8/8/8/3Pp3/8/8/4K3 w - d3 0 2"));
+        }
+
+        @Test
+        void testErrorCodes() {
+            Fen reader = new Fen();
+            Object[][] cases = {
+                { "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBxR w KQkq - 0 1", Fen.Error.PIECE,
+                    41 },
+                { "rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                    Fen.Error.RANK_LENGTH, 18 },
+                { "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KKkq - 0 1", Fen.Error.CASTLING,
+                    47 },
+                { "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBN1 w K - 0 1",
+                    Fen.Error.CASTLING_CONTRADICTION, 46 },
+                { STARTING_POSITION + " ", Fen.Error.FIELD_COUNT, 56 },
+                { "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 40 1",
+                    Fen.Error.HALFMOVE_CLOCK, 53 },
+            };
+            for (Object[] testCase : cases) {
+                assertFalse(reader.parse((String) testCase[0]), (String) testCase[0]);
+                assertEquals(testCase[1], reader.getError(), (String) testCase[0]);
+                assertEquals(testCase[2], reader.getErrorOffset(), (String) testCase[0]);
+            }
+            assertTrue(reader.parse(STARTING_POSITION));
+            assertEquals(Fen.Error.NONE, reader.getError());
+        }
+
+        @Test
+        void testLoadReusesBoard() {
+            Board board = Board.starterBoard();
+            board.movePiece("e4");
+            List<Piece> before = new ArrayList<>();
+            for (int square = 0; square < 64; square++) {
+                Piece piece = board.getPiece(new int[] { square % 8, square / 8 });
+                if (piece != null) {
+                    before.add(piece);
+                }
+            }
+            board.loadFEN(MID_GAME_BATTLE);
+            assertEquals(MID_GAME_BATTLE, board.boardToFEN());
+            // the same pieces are moved to their new squares
+            for (int square = 0; square < 64; square++) {
+                int[] coordinates = { square % 8, square / 8 };
+                Piece piece = board.getPiece(coordinates);
+                if (piece != null) {
+                    assertTrue(before.stream().anyMatch(old -> old == piece));
+                    assertArrayEquals(coordinates, piece.getPosition());
+                    assertTrue(piece.isActive());
+                }
+            }
+            assertTrue(board.getMoveHistory().isEmpty());
+            assertEquals(Board.FENtoBoard(MID_GAME_BATTLE).getZobristKey(), board.getZobristKey());
+
+            // a bad FEN leaves the board as it was
+            assertThrows(IllegalArgumentException.class, () -> board.loadFEN("8/8 w - - 0 1"));
+            assertEquals(MID_GAME_BATTLE, board.boardToFEN());
+        }
+
+        @Test
+        void testWriteAppends() {
+            StringBuilder sb = new StringBuilder("fen: ");
+            Board.FENtoBoard(EN_PASSANT_EXAMPLE).appendFEN(sb);
+            assertEquals("fen: " + EN_PASSANT_EXAMPLE, sb.toString());
+        }
     }
 
     @Nested
@@ -284,6 +373,28 @@ public class BoardTest {
             );
         }
 
+        @Test
+        void testPinnedSliderMovesAlongPin() {
+            Board board = Board.FENtoBoard("4k3/4r3/8/8/8/8/4R3/4K3 w - - 0 1");
+
+            // Rook on e2 may only slide up the e-file, up to and including e7
+            Piece rook = board.getPiece(new int[] { 4, 1 });
+            List<int[]> moves = rook.getLegalMoves();
+            assertEquals(5, moves.size(), "Pinned rook should stay on the e-file");
+            assertTrue(moves.stream().allMatch(move -> move[0] == 4));
+        }
+
+        @Test
+        void testEnPassantDiscoveredCheck() {
+            // Taking c4 en passant would clear both pawns off the king's rank
+            Board board = Board.FENtoBoard("4K3/8/8/8/kpP4R/8/8/8 b - c3 0 2");
+
+            Piece pawn = board.getPiece(new int[] { 1, 3 }); // b4
+            List<int[]> moves = pawn.getLegalMoves();
+            assertEquals(1, moves.size(), "Only the push to b3 should be legal");
+            assertArrayEquals(new int[] { 1, 2 }, moves.get(0));
+        }
+
         @Test
         void testMustBlockCheck() {
             // Position with king in check where only specific pieces can block
@@ -299,4 +410,465 @@ public class BoardTest {
             );
         }
     }
+
+    @Nested
+    class MovePieceTests {
+        @Test
+        void testCastlingMovesRook() {
+            Board board = Board.FENtoBoard(CASTLING_TEST);
+            board.movePiece(board.getPiece(new int[] { 4, 0 }), new int[] { 6, 0 }); // O-O
+
+            assertEquals(Piece.Type.KING, board.getPiece(new int[] { 6, 0 }).getType());
+            assertEquals(Piece.Type.ROOK, board.getPiece(new int[] { 5, 0 }).getType());
+            assertNull(board.getPiece(new int[] { 7, 0 }), "Rook should have left h1");
+            assertEquals("r3k2r/8/8/8/8/8/8/R4RK1 b kq - 1 1", board.boardToFEN());
+        }
+
+        @Test
+        void testEnPassantRemovesPawn() {
+            Board board = Board.FENtoBoard(EN_PASSANT_EXAMPLE);
+            board.movePiece(board.getPiece(new int[] { 6, 3 }), new int[] { 5, 2 }); // gxf3
+
+            assertNull(board.getPiece(new int[] { 5, 3 }), "Captured pawn should be removed");
+            assertEquals("4k3/8/8/4P3/8/5p2/8/4K3 w - - 0 11", board.boardToFEN());
+        }
+
+        @Test
+        void testHistoryMarksChecksAndMate() {
+            Board board = Board.starterBoard();
+            int[][] moves = { { 5, 1, 5, 2 }, { 4, 6, 4, 4 }, { 6, 1, 6, 3 }, { 3, 7, 7, 3 } };
+            for (int[] move : moves) {
+                board.movePiece(
+                        board.getPiece(new int[] { move[0], move[1] }),
+                        new int[] { move[2], move[3] }
+                );
+            }
+            assertEquals(List.of("f3", "e5", "g4", "Qh4#"), board.getMoveHistory());
+
+            // a discovered check from the castling rook
+            board = Board.FENtoBoard("5k2/8/8/8/8/8/8/4K2R w K - 0 1");
+            board.movePiece(board.getPiece(new int[] { 4, 0 }), new int[] { 6, 0 });
+            assertEquals(List.of("O-O+"), board.getMoveHistory());
+        }
+    }
+
+    @Nested
+    class MakeUnmakeTests {
+        @Test
+        void testUnmakeRestoresSpecialMoves() {
+            // castling, en passant and promotion each touch extra squares
+            String[][] cases = {
+                { CASTLING_TEST, "4 0 6 0" },
+                { CASTLING_TEST, "4 0 2 0" },
+                { EN_PASSANT_EXAMPLE, "6 3 5 2" },
+                { PROMOTION_POSITION, "4 6 4 7" }
+            };
+            for (String[] testCase : cases) {
+                Board board = Board.FENtoBoard(testCase[0]);
+                String[] squares = testCase[1].split(" ");
+                int[] from = { Integer.parseInt(squares[0]), Integer.parseInt(squares[1]) };
+                int[] to = { Integer.parseInt(squares[2]), Integer.parseInt(squares[3]) };
+                Piece moved = board.getPiece(from);
+
+                board.makeMove(from, to);
+                board.unmakeMove();
+
+                assertEquals(testCase[0], board.boardToFEN());
+                assertEquals(moved, board.getPiece(from), "Same piece object should be back");
+            }
+        }
+
+        @Test
+        void testUnmakeAfterMovePieceDropsHistory() {
+            Board board = Board.starterBoard();
+            board.movePiece(board.getPiece(new int[] { 4, 1 }), new int[] { 4, 3 });
+            board.unmakeMove();
+
+            assertEquals(STARTING_POSITION, board.boardToFEN());
+            assertTrue(board.getMoveHistory().isEmpty());
+        }
+    }
+
+    @Nested
+    class RepetitionTests {
+        private void play(Board board, int[] from, int[] to) {
+            board.movePiece(board.getPiece(from), to);
+        }
+
+        @Test
+        void testKnightShuffleIsThreefold() {
+            Board board = Board.starterBoard();
+            long startKey = board.getZobristKey();
+            int[] g1 = { 6, 0 };
+            int[] f3 = { 5, 2 };
+            int[] g8 = { 6, 7 };
+            int[] f6 = { 5, 5 };
+
+            for (int i = 0; i < 2; i++) {
+                assertFalse(board.isThreefoldRepetition());
+                play(board, g1, f3);
+                play(board, g8, f6);
+                play(board, f3, g1);
+                play(board, f6, g8);
+                assertEquals(startKey, board.getZobristKey(), "Same position, same key");
+            }
+            assertTrue(board.isThreefoldRepetition());
+            assertTrue(board.isGameOver());
+        }
+
+        @Test
+        void testRepetitionCountsFromLastPawnMove() {
+            Board board = Board.starterBoard();
+            int[] g1 = { 6, 0 };
+            int[] f3 = { 5, 2 };
+            int[] g8 = { 6, 7 };
+            int[] f6 = { 5, 5 };
+
+            play(board, g1, f3);
+            play(board, g8, f6);
+            play(board, f3, g1);
+            play(board, f6, g8);
+            play(board, new int[] { 4, 1 }, new int[] { 4, 3 }); // e4
+            play(board, new int[] { 4, 6 }, new int[] { 4, 4 }); // e5
+
+            // the position after e5 has now occurred twice
+            play(board, g1, f3);
+            play(board, g8, f6);
+            play(board, f3, g1);
+            play(board, f6, g8);
+            assertFalse(board.isThreefoldRepetition());
+
+            // and now three times
+            play(board, g1, f3);
+            play(board, g8, f6);
+            play(board, f3, g1);
+            play(board, f6, g8);
+            assertTrue(board.isThreefoldRepetition());
+
+            // taking a move back undoes the repetition
+            board.unmakeMove();
+            assertFalse(board.isThreefoldRepetition());
+        }
+
+        @Test
+        void testUncapturableEnPassantTargetIsDropped() {
+            // no black pawn can take on e3, so the FEN's target doesn't count
+            Board board = Board.FENtoBoard(
+                    "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1"
+            );
+            Board played = Board.starterBoard();
+            play(played, new int[] { 4, 1 }, new int[] { 4, 3 }); // e4
+            assertEquals(played.getZobristKey(), board.getZobristKey());
+            assertEquals(Position.NO_SQUARE, board.getPosition().getEnPassantSquare());
+
+            int[] g1 = { 6, 0 };
+            int[] f3 = { 5, 2 };
+            int[] g8 = { 6, 7 };
+            int[] f6 = { 5, 5 };
+            for (int i = 0; i < 2; i++) {
+                assertFalse(board.isThreefoldRepetition());
+                play(board, g8, f6);
+                play(board, g1, f3);
+                play(board, f6, g8);
+                play(board, f3, g1);
+            }
+            assertTrue(board.isThreefoldRepetition());
+        }
+    }
+
+    @Nested
+    class NotationTests {
+        private static final String TWO_KNIGHTS = "4k3/8/8/8/R7/8/8/RN2KN2 w - - 0 1";
+
+        @Test
+        void testRoundTrip() {
+            MoveList moves = new MoveList();
+            MoveList scratch = new MoveList();
+            for (String fen : new String[] { STARTING_POSITION, CASTLING_TEST, EN_PASSANT_EXAMPLE,
+                    "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                    "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1" }) {
+                Position position = Board.FENtoBoard(fen).getPosition();
+                moves.clear();
+                position.generateLegalMoves(moves);
+                for (int i = 0; i < moves.size(); i++) {
+                    int move = moves.get(i);
+                    String san = Notation.toSan(position, move, scratch);
+                    assertEquals(move, Notation.parse(position, san, scratch), san);
+                    assertEquals(
+                            move, Notation.parse(position, Move.toString(move), scratch),
+                            Move.toString(move)
+                    );
+                }
+            }
+        }
+
+        @Test
+        void testDisambiguation() {
+            Position position = Board.FENtoBoard(TWO_KNIGHTS).getPosition();
+            MoveList scratch = new MoveList();
+            int bd2 = Notation.parse(position, "Nbd2", scratch);
+            assertEquals("b1d2", Move.toString(bd2));
+            assertEquals("Nbd2", Notation.toSan(position, bd2, scratch));
+            String[][] cases = { { "f1d2", "Nfd2" }, { "a1a3", "R1a3" }, { "Nc3", "Nc3" } };
+            for (String[] testCase : cases) {
+                int move = Notation.parse(position, testCase[0], scratch);
+                assertEquals(testCase[1], Notation.toSan(position, move, scratch));
+            }
+        }
+
+        @Test
+        void testRejectsBadText() {
+            Position position = Board.FENtoBoard(TWO_KNIGHTS).getPosition();
+            MoveList scratch = new MoveList();
+            for (String text : new String[] { "Nd2", "Ra3", "e4", "Nb1d", "Zd2", "O-O", "", "+",
+                    "Nbd2d", "a1a3q" }) {
+                assertEquals(Move.NONE, Notation.parse(position, text, scratch), text);
+            }
+        }
+
+        @Test
+        void testCaptureMarksMustMatch() {
+            Position position = Board.FENtoBoard(STARTING_POSITION).getPosition();
+            MoveList scratch = new MoveList();
+            for (String text : new String[] { "Nf3xx", "Nxf3", "exe4", "Nf3x", "xe4", "e2xe4",
+                    "Ng1-xf3", "Ng1f3-", "e:e4" }) {
+                assertEquals(Move.NONE, Notation.parse(position, text, scratch), text);
+            }
+            assertEquals("g1f3", Move.toString(Notation.parse(position, "Ng1-f3", scratch)));
+            assertEquals("e2e4", Move.toString(Notation.parse(position, "e2-e4", scratch)));
+
+            position = Board.FENtoBoard(EN_PASSANT_EXAMPLE).getPosition();
+            assertEquals("g4f3", Move.toString(Notation.parse(position, "gxf3", scratch)));
+            assertEquals("g4f3", Move.toString(Notation.parse(position, "g4:f3", scratch)));
+            assertEquals(Move.NONE, Notation.parse(position, "g4-f3", scratch));
+        }
+
+        @Test
+        void testCastlingAndPromotionMustBeSpelledOut() {
+            Position position = Board.FENtoBoard(CASTLING_TEST).getPosition();
+            MoveList scratch = new MoveList();
+            assertEquals(Move.NONE, Notation.parse(position, "Kg1", scratch));
+            assertEquals(Move.NONE, Notation.parse(position, "Kc1", scratch));
+            int castle = Notation.parse(position, "O-O", scratch);
+            assertTrue(Move.isCastling(castle));
+            assertEquals(castle, Notation.parse(position, "e1g1", scratch), "UCI castling");
+
+            position = Board.FENtoBoard("k7/4P3/8/8/8/8/8/7K w - - 0 1").getPosition();
+            for (String text : new String[] { "e8", "e8=", "e8==Q", "e8=Q=", "e8QQ", "e=8Q" }) {
+                assertEquals(Move.NONE, Notation.parse(position, text, scratch), text);
+            }
+            assertEquals("e7e8q", Move.toString(Notation.parse(position, "e7e8", scratch)));
+        }
+
+        @Test
+        void testPromotionAndSuffixes() {
+            Board board = Board.FENtoBoard("k7/4P3/8/8/8/8/8/7K w - - 0 1");
+            board.movePiece("e8=N");
+            assertEquals(Piece.Type.KNIGHT, board.getPiece(new int[] { 4, 7 }).getType());
+            board.unmakeMove();
+
+            board.movePiece("e7e8q+");
+            assertEquals(Piece.Type.QUEEN, board.getPiece(new int[] { 4, 7 }).getType());
+            assertEquals(List.of("e8=Q+"), board.getMoveHistory());
+        }
+
+        @Test
+        void testHistoryReplays() {
+            Board board = Board.starterBoard();
+            String[] game = { "e4", "e5", "Nf3", "Nc6", "Bb5", "a6", "Bxc6", "dxc6", "O-O", "f6",
+                "d4", "exd4", "Nxd4", "c5", "Nb3", "Qxd1", "Rxd1" };
+            for (String move : game) {
+                board.movePiece(move);
+            }
+            assertEquals(List.of(game), board.getMoveHistory());
+            assertThrows(IllegalArgumentException.class, () -> board.movePiece("Rxd1"));
+        }
+    }
+
+    @Nested
+    class SnapshotTests {
+        @Test
+        void testSnapshotRestoresPosition() {
+            Board board = Board.starterBoard();
+            for (String move : new String[] { "e4", "e5", "Nf3" }) {
+                board.movePiece(move);
+            }
+            PositionSnapshot snapshot = board.getSnapshot();
+            Position restored = snapshot.toPosition();
+            assertEquals(board.getZobristKey(), restored.getHash());
+            assertEquals(restored.computeHash(), restored.getHash());
+            StringBuilder fen = new StringBuilder();
+            Fen.write(restored, fen);
+            assertEquals(board.boardToFEN(), fen.toString());
+
+            // the knight move is kept, so it can be taken back
+            assertEquals(1, snapshot.getUndoDepth());
+            restored.unmakeMove();
+            board.unmakeMove();
+            assertEquals(board.getZobristKey(), restored.getHash());
+        }
+
+        @Test
+        void testSnapshotKeepsRepetitions() {
+            Board board = Board.starterBoard();
+            for (int i = 0; i < 2; i++) {
+                for (String move : new String[] { "Nf3", "Nf6", "Ng1", "Ng8" }) {
+                    board.movePiece(move);
+                }
+            }
+            assertTrue(board.isThreefoldRepetition());
+            assertEquals(2, board.getSnapshot().toPosition().countRepetitions());
+        }
+
+        @Test
+        void testSnapshotIsNotChangedByLaterMoves() {
+            Board board = Board.starterBoard();
+            PositionSnapshot before = board.getSnapshot();
+            board.movePiece("d4");
+            assertNotSame(before, board.getSnapshot());
+            assertEquals(Board.starterBoard().getZobristKey(), before.getHash());
+            assertEquals(Position.NO_PIECE, board.getSnapshot().getPieceAt(Position.square(3, 1)));
+            assertEquals(
+                    Position.pieceCode(Position.WHITE, Position.PAWN),
+                    before.getPieceAt(Position.square(3, 1))
+            );
+        }
+
+        @Test
+        void testReadersSeeConsistentPositions() throws InterruptedException {
+            Board board = Board.starterBoard();
+            AtomicBoolean done = new AtomicBoolean();
+            AtomicInteger inconsistent = new AtomicInteger();
+            Thread reader = new Thread(() -> {
+                while (!done.get()) {
+                    Position position = board.getSnapshot().toPosition();
+                    if (position.computeHash() != position.getHash()) {
+                        inconsistent.incrementAndGet();
+                    }
+                }
+            });
+            reader.start();
+            for (int i = 0; i < 200; i++) {
+                board.movePiece("e4");
+                board.movePiece("e5");
+                board.unmakeMove();
+                board.unmakeMove();
+            }
+            done.set(true);
+            reader.join();
+            assertEquals(0, inconsistent.get());
+        }
+    }
+
+    @Nested
+    class StatusTests {
+        @Test
+        void testStartingPositionIsOngoing() {
+            GameStatus status = Board.FENtoBoard(STARTING_POSITION).getStatus();
+            assertEquals(GameStatus.Reason.NONE, status.getReason());
+            assertFalse(status.isInCheck());
+            assertEquals(20, status.getLegalMoveCount());
+            assertNull(status.getWinner());
+        }
+
+        @Test
+        void testCheckmate() {
+            Board board = Board
+                    .FENtoBoard("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 0 1");
+            GameStatus status = board.getStatus();
+            assertEquals(GameStatus.Reason.CHECKMATE, status.getReason());
+            assertTrue(status.isInCheck());
+            assertEquals(0, status.getLegalMoveCount());
+            assertEquals(Piece.Color.BLACK, status.getWinner());
+        }
+
+        @Test
+        void testStalemate() {
+            Board board = Board.FENtoBoard("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1");
+            assertEquals(GameStatus.Reason.STALEMATE, board.getStatus().getReason());
+            assertTrue(board.isStalemate(Piece.Color.BLACK));
+            assertFalse(board.isCheckmate(Piece.Color.BLACK));
+        }
+
+        @Test
+        void testDrawRules() {
+            assertEquals(
+                    GameStatus.Reason.FIFTY_MOVE_RULE,
+                    Board.FENtoBoard("4k3/8/8/8/8/8/4R3/4K3 w - - 100 80").getStatus().getReason()
+            );
+            assertEquals(
+                    GameStatus.Reason.INSUFFICIENT_MATERIAL,
+                    Board.FENtoBoard("4k3/8/8/8/8/8/4N3/4K3 w - - 0 1").getStatus().getReason()
+            );
+            assertEquals(
+                    GameStatus.Reason.NONE,
+                    Board.FENtoBoard("4k3/8/8/8/8/8/3BN3/4K3 w - - 0 1").getStatus().getReason()
+            );
+        }
+
+        @Test
+        void testSharedUntilTheBoardChanges() {
+            Board board = Board.FENtoBoard(STARTING_POSITION);
+            GameStatus before = board.getStatus();
+            assertSame(before, board.getStatus(), "Worked out once per position");
+
+            board.makeMove(new int[] { 4, 1 }, new int[] { 4, 3 });
+            GameStatus after = board.getStatus();
+            assertNotSame(before, after);
+            assertEquals(Piece.Color.BLACK, after.getToMove());
+
+            board.unmakeMove();
+            assertEquals(Piece.Color.WHITE, board.getStatus().getToMove());
+        }
+
+        @Test
+        void testCapturingTheLastRookIsInsufficient() {
+            Board board = Board.FENtoBoard("4k3/8/8/8/8/8/4r3/3NK3 w - - 0 1");
+            assertFalse(board.isInsufficientMaterial());
+            board.makeMove(new int[] { 4, 0 }, new int[] { 4, 1 });
+            assertTrue(board.isInsufficientMaterial());
+            assertEquals(
+                    GameStatus.Reason.INSUFFICIENT_MATERIAL, board.getStatus().getReason()
+            );
+        }
+    }
+
+    @Nested
+    class AttackTests {
+        @Test
+        void testSquareAttacked() {
+            Board board = Board.FENtoBoard(FOOL_MATE_POSITION);
+
+            // black queen on d4 attacks along its open lines
+            assertTrue(board.isSquareAttacked(new int[] { 3, 1 }, Piece.Color.BLACK)); // d2
+            assertTrue(board.isSquareAttacked(new int[] { 5, 1 }, Piece.Color.BLACK)); // f2
+            // but not past the first blocker, the pawn on b2
+            assertTrue(board.isSquareAttacked(new int[] { 1, 1 }, Piece.Color.BLACK)); // b2
+            assertFalse(board.isSquareAttacked(new int[] { 0, 0 }, Piece.Color.BLACK)); // a1
+            // white pawns attack diagonally forward only
+            assertTrue(board.isSquareAttacked(new int[] { 3, 2 }, Piece.Color.WHITE)); // d3
+            assertFalse(board.isSquareAttacked(new int[] { 4, 3 }, Piece.Color.WHITE)); // e4
+        }
+
+        @Test
+        void testGeometryTables() {
+            int a1 = 0;
+            int d4 = 27;
+            int h8 = 63;
+            int b3 = 17;
+
+            assertEquals(6, Long.bitCount(Attacks.between(a1, h8)), "b2 to g7 lie between");
+            assertEquals(1L << 9 | 1L << 18, Attacks.between(a1, d4)); // b2, c3
+            assertEquals(0L, Attacks.between(a1, b3), "Not on a shared line");
+            assertEquals(Attacks.line(a1, d4), Attacks.line(d4, h8));
+            assertTrue(Attacks.aligned(a1, d4, h8));
+            assertEquals(7, Attacks.distance(a1, h8));
+            assertEquals(2, Attacks.distance(a1, b3));
+        }
+
+        @Test
+        void testMagicTablesMatchRayWalk() {
+            assertTrue(Magics.verify(), "Every magic lookup should match walking the rays");
+        }
+    }
 }
@@ -0,0 +1,140 @@
+package org.cis1200.chess;
+
+import java.util.Map;
+
+import org.cis1200.Board;
+import org.cis1200.bitboard.Move;
+import org.cis1200.bitboard.MoveList;
+import org.cis1200.bitboard.Position;
+import org.cis1200.perft.Perft;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Perft counts for the standard reference positions from the Chess
+ * Programming Wiki. Any legality bug in move generation shows up here as a
+ * wrong node count.
+ */
+public class PerftTest {
+    private static final String STARTING_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    private static final String ENDGAME_ROOKS = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+    private static final String PROMOTION_TACTICS = "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+    private static final String DISCOVERED_CHECKS = "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8";
+    private static final String SYMMETRIC_MIDDLEGAME = "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10";
+
+    private final Perft perft = new Perft(Runtime.getRuntime().availableProcessors(), 32);
+
+    private long count(String fen, int depth) {
+        return perft.count(Board.FENtoBoard(fen).getPosition(), depth);
+    }
+
+    @Nested
+    class ReferencePositionTests {
+        @Test
+        void testStartingPosition() {
+            assertEquals(20, count(STARTING_POSITION, 1));
+            assertEquals(8902, count(STARTING_POSITION, 3));
+            assertEquals(4865609, count(STARTING_POSITION, 5));
+        }
+
+        @Test
+        void testKiwipete() {
+            assertEquals(48, count(KIWIPETE, 1));
+            assertEquals(97862, count(KIWIPETE, 3));
+            assertEquals(4085603, count(KIWIPETE, 4));
+            assertEquals(193690690, count(KIWIPETE, 5));
+        }
+
+        @Test
+        void testEndgameRooks() {
+            assertEquals(2812, count(ENDGAME_ROOKS, 3));
+            assertEquals(674624, count(ENDGAME_ROOKS, 5));
+            assertEquals(11030083, count(ENDGAME_ROOKS, 6));
+        }
+
+        @Test
+        void testPromotionTactics() {
+            assertEquals(9467, count(PROMOTION_TACTICS, 3));
+            assertEquals(15833292, count(PROMOTION_TACTICS, 5));
+        }
+
+        @Test
+        void testDiscoveredChecks() {
+            assertEquals(62379, count(DISCOVERED_CHECKS, 3));
+            assertEquals(2103487, count(DISCOVERED_CHECKS, 4));
+            assertEquals(89941194, count(DISCOVERED_CHECKS, 5));
+        }
+
+        @Test
+        void testSymmetricMiddlegame() {
+            assertEquals(89890, count(SYMMETRIC_MIDDLEGAME, 3));
+            assertEquals(3894594, count(SYMMETRIC_MIDDLEGAME, 4));
+            assertEquals(164075551, count(SYMMETRIC_MIDDLEGAME, 5));
+        }
+    }
+
+    @Nested
+    class RunnerTests {
+        @Test
+        void testDivideSumsToTotal() {
+            Position position = Board.FENtoBoard(KIWIPETE).getPosition();
+            Map<Integer, Long> divide = perft.divide(position, 3);
+
+            assertEquals(48, divide.size(), "One entry per root move");
+            assertEquals(97862, divide.values().stream().mapToLong(Long::longValue).sum());
+        }
+
+        @Test
+        void testCacheDoesNotChangeCounts() {
+            Position position = Board.FENtoBoard(DISCOVERED_CHECKS).getPosition();
+            long uncached = new Perft(1, 0).count(position, 3);
+
+            assertEquals(uncached, new Perft(2, 1).count(position, 3));
+        }
+    }
+
+    @Nested
+    class MoveClassificationTests {
+        /**
+         * Walks the tree below a position, comparing the cheap answers with
+         * making each move.
+         */
+        private void walk(Position position, int depth) {
+            MoveList moves = new MoveList();
+            position.generateLegalMoves(moves);
+            assertEquals(!moves.isEmpty(), position.hasLegalMoves(), "Has a legal move");
+            if (depth == 0) {
+                return;
+            }
+            for (int i = 0; i < moves.size(); i++) {
+                int move = moves.get(i);
+                boolean givesCheck = position.givesCheck(move);
+                position.makeMove(move);
+                assertEquals(
+                        position.isInCheck(position.getSideToMove()), givesCheck,
+                        "Gives check: " + Move.toString(move)
+                );
+                walk(position, depth - 1);
+                position.unmakeMove();
+            }
+        }
+
+        @Test
+        void testGivesCheckMatchesMakingTheMove() {
+            for (String fen : new String[] { KIWIPETE, ENDGAME_ROOKS, PROMOTION_TACTICS,
+                    DISCOVERED_CHECKS, SYMMETRIC_MIDDLEGAME }) {
+                walk(Board.FENtoBoard(fen).getPosition(), 2);
+            }
+        }
+
+        @Test
+        void testCastlingAndEnPassantChecks() {
+            // the rook checks on f1 after castling short
+            walk(Board.FENtoBoard("5k2/8/8/8/8/8/8/4K2R w K - 0 1").getPosition(), 1);
+            // taking en passant uncovers the rook on a4
+            walk(Board.FENtoBoard("8/8/8/8/r2Pp2K/8/8/4k3 b - d3 0 1").getPosition(), 1);
+        }
+    }
+}
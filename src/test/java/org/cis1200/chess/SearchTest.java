@@ -0,0 +1,472 @@
+package org.cis1200.chess;
+
+import org.cis1200.Board;
+import org.cis1200.bitboard.Move;
+import org.cis1200.bitboard.MoveGenerator;
+import org.cis1200.bitboard.MoveList;
+import org.cis1200.bitboard.Position;
+import org.cis1200.engine.Evaluation;
+import org.cis1200.engine.MoveOrderer;
+import org.cis1200.engine.ParallelSearch;
+import org.cis1200.engine.Search;
+import org.cis1200.engine.SearchFeature;
+import org.cis1200.engine.SearchLimits;
+import org.cis1200.engine.SearchResult;
+import org.cis1200.engine.SearchStatistics;
+import org.cis1200.engine.StaticExchange;
+import org.cis1200.engine.TimeManager;
+import org.cis1200.engine.TranspositionTable;
+import org.cis1200.util.Piece;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+public class SearchTest {
+    private static final String BACK_RANK_MATE = "6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1";
+    private static final String HANGING_QUEEN = "4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1";
+    private static final String STALEMATE = "7k/5Q2/6K1/8/8/8/8/8 b - - 0 1";
+    private static final String STARTING_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    private static final String DEFENDED_PAWN = "4k3/8/2p5/3p4/8/8/3Q4/4K3 w - - 0 1";
+    private static final String ROOK_BATTERY = "3r2k1/8/8/3p4/8/8/3R4/3R2K1 w - - 0 1";
+    private static final String KING_TAKES_DEFENDED = "4r2k/8/8/8/8/8/4n3/3K4 b - - 0 1";
+    private static final String PROMOTION_TACTICS = "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+
+    private SearchResult search(String fen, SearchLimits limits) {
+        return new Search().search(Board.FENtoBoard(fen), limits);
+    }
+
+    @Nested
+    class BestMoveTests {
+        @Test
+        void testFindsMateInOne() {
+            SearchResult result = search(BACK_RANK_MATE, SearchLimits.depth(4));
+            assertEquals("a1a8", Move.toString(result.getBestMove()));
+            assertEquals(Search.MATE - 1, result.getScore());
+            assertEquals(1, Search.mateIn(result.getScore()));
+        }
+
+        @Test
+        void testWinsHangingQueen() {
+            SearchResult result = search(HANGING_QUEEN, SearchLimits.depth(3));
+            assertEquals("d2d5", Move.toString(result.getBestMove()));
+            assertTrue(result.getScore() > 0, "Winning a queen should score well");
+        }
+
+        @Test
+        void testStalemateHasNoMove() {
+            SearchResult result = search(STALEMATE, SearchLimits.depth(3));
+            assertEquals(Move.NONE, result.getBestMove());
+            assertEquals(0, result.getScore());
+        }
+    }
+
+    @Nested
+    class LimitTests {
+        @Test
+        void testDepthLimit() {
+            SearchResult result = search(STARTING_POSITION, SearchLimits.depth(3));
+            assertEquals(3, result.getDepth());
+            assertEquals(3, result.getPrincipalVariation().length);
+        }
+
+        @Test
+        void testNodeLimitStillReturnsMove() {
+            SearchResult result = search(STARTING_POSITION, SearchLimits.nodes(1));
+            assertTrue(result.getNodes() <= 1, "The node limit holds even at depth 1");
+            MoveList legal = new MoveList();
+            Board.FENtoBoard(STARTING_POSITION).getPosition().generateLegalMoves(legal);
+            assertTrue(legal.contains(result.getBestMove()), "Some legal move is still played");
+        }
+    }
+
+    @Nested
+    class TranspositionTableTests {
+        @Test
+        void testStoreAndProbe() {
+            TranspositionTable table = new TranspositionTable(1);
+            int move = Move.of(12, 28, 0, Move.DOUBLE_PUSH);
+            table.store(0x1234_5678_9ABCL, move, -31990, 7, TranspositionTable.LOWER_BOUND);
+
+            long entry = table.probe(0x1234_5678_9ABCL);
+            assertEquals(move, TranspositionTable.move(entry));
+            assertEquals(-31990, TranspositionTable.score(entry));
+            assertEquals(7, TranspositionTable.depth(entry));
+            assertEquals(TranspositionTable.LOWER_BOUND, TranspositionTable.bound(entry));
+            assertEquals(0L, table.probe(0x1234_5678_9ABDL), "Other keys should miss");
+        }
+
+        @Test
+        void testBucketKeepsDeepEntries() {
+            TranspositionTable table = new TranspositionTable(1);
+            // keys that differ only above the index bits share a bucket
+            long stride = 1L << 40;
+            for (int i = 0; i < 4; i++) {
+                table.store(i * stride, 0, 0, 10 + i, TranspositionTable.EXACT);
+            }
+            table.store(4 * stride, 0, 0, 1, TranspositionTable.EXACT);
+
+            assertEquals(0L, table.probe(0), "The shallowest entry should be replaced");
+            for (int i = 1; i <= 4; i++) {
+                assertTrue(table.probe(i * stride) != 0);
+            }
+        }
+
+        @Test
+        void testSharedTableAcrossSearches() {
+            TranspositionTable table = new TranspositionTable(4);
+            SearchResult first = new Search(table).search(
+                    Board.FENtoBoard(STARTING_POSITION), SearchLimits.depth(4)
+            );
+            SearchResult second = new Search(table).search(
+                    Board.FENtoBoard(STARTING_POSITION), SearchLimits.depth(4)
+            );
+            assertEquals(first.getScore(), second.getScore());
+            assertTrue(second.getNodes() < first.getNodes(), "Stored results should be reused");
+        }
+    }
+
+    @Nested
+    class ParallelSearchTests {
+        @Test
+        void testHelpersAgreeOnMate() {
+            ParallelSearch search = new ParallelSearch(4, 4);
+            SearchResult result = search.search(
+                    Board.FENtoBoard(BACK_RANK_MATE), SearchLimits.depth(4)
+            );
+            assertEquals("a1a8", Move.toString(result.getBestMove()));
+            assertEquals(Search.MATE - 1, result.getScore());
+        }
+
+        @Test
+        void testStopBeforeSearchStartsIsKept() {
+            ParallelSearch search = new ParallelSearch(2, 4);
+            Position root = Board.FENtoBoard(STARTING_POSITION).getPosition();
+            int stopsBefore = search.getStopRequests();
+            search.stop();
+            SearchResult stopped = search.search(
+                    root, SearchLimits.depth(SearchLimits.MAX_DEPTH), stopsBefore
+            );
+            assertEquals(0, stopped.getDepth());
+            assertTrue(stopped.getBestMove() != Move.NONE);
+
+            // the request was for that search only
+            assertEquals(3, search.search(root, SearchLimits.depth(3)).getDepth());
+        }
+
+        @Test
+        void testHelpersStopWithMainWorker() {
+            ParallelSearch search = new ParallelSearch(3, 4);
+            SearchResult result = search.search(
+                    Board.FENtoBoard(STARTING_POSITION), SearchLimits.depth(3)
+            );
+            assertEquals(3, result.getDepth());
+            assertTrue(result.getNodes() > 0);
+        }
+    }
+
+    @Nested
+    class EvaluationTests {
+        /**
+         * Walks every line to the given depth, checking the incremental
+         * evaluation against a full recompute before and after each move.
+         */
+        private void assertIncrementalMatches(Position position, int depth) {
+            assertEquals(Evaluation.evaluateFromScratch(position), Evaluation.evaluate(position));
+            if (depth == 0) {
+                return;
+            }
+            MoveList moves = new MoveList();
+            position.generateLegalMoves(moves);
+            for (int i = 0; i < moves.size(); i++) {
+                position.makeMove(moves.get(i));
+                assertIncrementalMatches(position, depth - 1);
+                position.unmakeMove();
+            }
+            assertEquals(Evaluation.evaluateFromScratch(position), Evaluation.evaluate(position));
+        }
+
+        @Test
+        void testIncrementalMatchesRecompute() {
+            assertIncrementalMatches(Board.FENtoBoard(KIWIPETE).getPosition(), 3);
+            assertIncrementalMatches(Board.FENtoBoard(PROMOTION_TACTICS).getPosition(), 3);
+        }
+
+        @Test
+        void testStartingPositionIsBalanced() {
+            Position position = Board.FENtoBoard(STARTING_POSITION).getPosition();
+            assertEquals(0, Evaluation.evaluate(position));
+            assertEquals(24, position.getPhase());
+        }
+
+        @Test
+        void testSideToMovePerspective() {
+            // white is a queen up
+            Position position = Board.FENtoBoard(HANGING_QUEEN.replace("3q4", "3Q4"))
+                    .getPosition();
+            assertTrue(Evaluation.evaluate(position) > 800);
+        }
+    }
+
+    @Nested
+    class MoveOrderingTests {
+        private int find(MoveList moves, String lan) {
+            for (int i = 0; i < moves.size(); i++) {
+                if (Move.toString(moves.get(i)).equals(lan)) {
+                    return moves.get(i);
+                }
+            }
+            throw new AssertionError(lan + " is not legal");
+        }
+
+        @Test
+        void testTableMoveThenCapturesThenKillers() {
+            Position position = Board.FENtoBoard(HANGING_QUEEN).getPosition();
+            MoveList moves = new MoveList();
+            position.generateLegalMoves(moves);
+            MoveOrderer orderer = new MoveOrderer();
+
+            // make d2d3 a killer at ply 0 by recording a cutoff with it
+            MoveList tried = new MoveList();
+            tried.add(find(moves, "d2d3"));
+            orderer.recordCutoff(position, tried, 0, 0, 4, Move.NONE);
+
+            orderer.scoreMoves(position, moves, 0, find(moves, "e1f1"), Move.NONE);
+            assertEquals("e1f1", Move.toString(orderer.pickNext(moves, 0, 0)));
+            assertEquals("d2d5", Move.toString(orderer.pickNext(moves, 0, 1)));
+            assertEquals("d2d3", Move.toString(orderer.pickNext(moves, 0, 2)));
+        }
+
+        @Test
+        void testHistoryStaysBounded() {
+            Position position = Board.FENtoBoard(STARTING_POSITION).getPosition();
+            MoveList moves = new MoveList();
+            position.generateLegalMoves(moves);
+            MoveOrderer orderer = new MoveOrderer();
+            for (int i = 0; i < 1000; i++) {
+                orderer.recordCutoff(position, moves, 0, 0, 40, Move.NONE);
+            }
+            int history = orderer.getHistory(Position.WHITE, moves.get(0));
+            assertTrue(history > 0 && history <= MoveOrderer.MAX_HISTORY);
+        }
+    }
+
+    @Nested
+    class QuiescenceTests {
+        /**
+         * Walks every line to the given depth, checking that the capture
+         * generator produces exactly the legal captures and promotions, or
+         * every legal move in check.
+         */
+        private void assertCapturesMatchLegal(Position position, int depth) {
+            MoveList legal = new MoveList();
+            position.generateLegalMoves(legal);
+            MoveList captures = new MoveList();
+            MoveGenerator.generateCaptures(position, captures);
+
+            boolean inCheck = position.isInCheck(position.getSideToMove());
+            int expected = 0;
+            for (int i = 0; i < legal.size(); i++) {
+                int move = legal.get(i);
+                if (inCheck || Move.isCapture(move) || Move.isPromotion(move)) {
+                    expected++;
+                    assertTrue(captures.contains(move), Move.toString(move) + " is missing");
+                }
+            }
+            assertEquals(expected, captures.size());
+
+            if (depth == 0) {
+                return;
+            }
+            for (int i = 0; i < legal.size(); i++) {
+                position.makeMove(legal.get(i));
+                assertCapturesMatchLegal(position, depth - 1);
+                position.unmakeMove();
+            }
+        }
+
+        @Test
+        void testCaptureGenerationMatchesLegalMoves() {
+            assertCapturesMatchLegal(Board.FENtoBoard(KIWIPETE).getPosition(), 3);
+            assertCapturesMatchLegal(Board.FENtoBoard(PROMOTION_TACTICS).getPosition(), 3);
+        }
+
+        @Test
+        void testSeesRecaptureBeyondHorizon() {
+            SearchResult result = search(DEFENDED_PAWN, SearchLimits.depth(1));
+            assertNotEquals("d2d5", Move.toString(result.getBestMove()));
+        }
+    }
+
+    @Nested
+    class StaticExchangeTests {
+        private int see(String fen, String from, String to) {
+            Position position = Board.FENtoBoard(fen).getPosition();
+            return StaticExchange.see(position, Move.of(square(from), square(to)));
+        }
+
+        private int square(String name) {
+            return Position.square(name.charAt(0) - 'a', name.charAt(1) - '1');
+        }
+
+        @Test
+        void testUndefendedVictim() {
+            assertEquals(900, see(HANGING_QUEEN, "d2", "d5"));
+        }
+
+        @Test
+        void testDefendedVictim() {
+            assertEquals(-800, see(DEFENDED_PAWN, "d2", "d5"));
+        }
+
+        @Test
+        void testXrayAttackerJoinsExchange() {
+            // Rxd5 Rxd5 Rxd5: the rook behind recaptures through the first one
+            assertEquals(100, see(ROOK_BATTERY, "d2", "d5"));
+            Position position = Board.FENtoBoard(ROOK_BATTERY).getPosition();
+            int capture = Move.of(square("d2"), square("d5"));
+            assertTrue(StaticExchange.seeGreaterOrEqual(position, capture, 100));
+            assertTrue(!StaticExchange.seeGreaterOrEqual(position, capture, 101));
+        }
+
+        @Test
+        void testBoardReportsHangingPieces() {
+            Board board = Board.FENtoBoard(HANGING_QUEEN);
+            assertEquals(9, board.see(new int[] { 3, 1 }, new int[] { 3, 4 }));
+            assertEquals(1, board.getHangingPieces(Piece.Color.BLACK).size());
+            assertEquals(Piece.Type.QUEEN, board.getHangingPieces(Piece.Color.BLACK).get(0).getType());
+            assertTrue(board.getHangingPieces(Piece.Color.WHITE).isEmpty());
+
+            // the pawn is defended, so the queen would lose the exchange
+            assertTrue(Board.FENtoBoard(DEFENDED_PAWN).getHangingPieces(Piece.Color.BLACK).isEmpty());
+        }
+
+        @Test
+        void testKingCannotTakeDefendedPiece() {
+            // the rook on e8 defends the knight, so Kxe2 is illegal
+            assertEquals(0, see(KING_TAKES_DEFENDED, "d1", "e2"));
+            Board board = Board.FENtoBoard(KING_TAKES_DEFENDED);
+            assertEquals(0, board.see(new int[] { 3, 0 }, new int[] { 4, 1 }));
+            assertTrue(board.getHangingPieces(Piece.Color.BLACK).isEmpty());
+        }
+    }
+
+    @Nested
+    class SelectivityTests {
+        @Test
+        void testNullMoveRestoresPosition() {
+            Position position = Board.FENtoBoard(KIWIPETE).getPosition();
+            position.makeMove(Move.of(Position.square(0, 1), Position.square(0, 3)));
+            long hash = position.getHash();
+            int enPassant = position.getEnPassantSquare();
+
+            position.makeNullMove();
+            assertEquals(Position.WHITE, position.getSideToMove());
+            assertEquals(Position.NO_SQUARE, position.getEnPassantSquare());
+            assertEquals(position.computeHash(), position.getHash());
+
+            position.unmakeNullMove();
+            assertEquals(Position.BLACK, position.getSideToMove());
+            assertEquals(enPassant, position.getEnPassantSquare());
+            assertEquals(hash, position.getHash());
+        }
+
+        @Test
+        void testFeaturesAreReported() {
+            SearchStatistics statistics = search(KIWIPETE, SearchLimits.depth(6)).getStatistics();
+            for (SearchFeature feature : SearchFeature.values()) {
+                assertTrue(statistics.getUses(feature) > 0, feature + " was never used");
+            }
+        }
+
+        @Test
+        void testDisabledFeaturesAreNotUsed() {
+            Search search = new Search();
+            for (SearchFeature feature : SearchFeature.values()) {
+                search.setFeatureEnabled(feature, false);
+            }
+            SearchResult result = search.search(Board.FENtoBoard(KIWIPETE), SearchLimits.depth(4));
+            for (SearchFeature feature : SearchFeature.values()) {
+                assertEquals(0, result.getStatistics().getUses(feature));
+            }
+        }
+
+        @Test
+        void testTacticsHoldWithoutEachFeature() {
+            for (SearchFeature disabled : SearchFeature.values()) {
+                Search search = new Search();
+                search.setFeatureEnabled(disabled, false);
+                SearchResult result = search.search(Board.FENtoBoard(HANGING_QUEEN), SearchLimits.depth(5));
+                assertEquals("d2d5", Move.toString(result.getBestMove()), "Without " + disabled);
+            }
+        }
+    }
+
+    @Nested
+    class TimeManagerTests {
+        private static final long MILLIS = 1_000_000L;
+
+        @Test
+        void testClockBudgets() {
+            TimeManager manager = new TimeManager(SearchLimits.clock(60_000, 1_000, 0), 1, 0);
+            assertTrue(manager.getSoftMillis() > 1_000 && manager.getSoftMillis() < 3_000);
+            assertTrue(manager.getHardMillis() > manager.getSoftMillis());
+            assertTrue(manager.getHardMillis() < 60_000 / 2);
+        }
+
+        @Test
+        void testLastMoveBeforeTimeControlUsesMostOfClock() {
+            TimeManager manager = new TimeManager(SearchLimits.clock(10_000, 0, 1), 30, 0);
+            assertTrue(manager.getHardMillis() > 8_000 && manager.getHardMillis() < 10_000);
+            assertTrue(manager.getSoftMillis() <= manager.getHardMillis());
+        }
+
+        @Test
+        void testFixedMoveTimeIsUsedUp() {
+            TimeManager manager = new TimeManager(SearchLimits.time(500), 1, 0);
+            assertEquals(500, manager.getSoftMillis());
+            assertEquals(500, manager.getHardMillis());
+            assertTrue(!manager.shouldStopIterating(1, 0, 400 * MILLIS));
+            assertTrue(manager.shouldStopIterating(1, 0, 500 * MILLIS));
+        }
+
+        @Test
+        void testStableMoveStopsBeforeChangingMove() {
+            SearchLimits limits = SearchLimits.clock(60_000, 0, 0);
+            TimeManager stable = new TimeManager(limits, 1, 0);
+            TimeManager unstable = new TimeManager(limits, 1, 0);
+            long soft = stable.getSoftMillis();
+            for (int iteration = 1; iteration <= 5; iteration++) {
+                long now = iteration * soft / 20 * MILLIS;
+                assertTrue(!stable.shouldStopIterating(1, 0, now));
+                assertTrue(!unstable.shouldStopIterating(iteration, 0, now));
+            }
+            long now = soft * 4 / 10 * MILLIS;
+            assertTrue(stable.shouldStopIterating(1, 0, now));
+            assertTrue(!unstable.shouldStopIterating(6, 0, now));
+        }
+
+        @Test
+        void testFallingScoreExtendsBudget() {
+            SearchLimits limits = SearchLimits.clock(60_000, 0, 0);
+            TimeManager steady = new TimeManager(limits, 1, 0);
+            TimeManager falling = new TimeManager(limits, 1, 0);
+            steady.shouldStopIterating(1, 50, 0);
+            falling.shouldStopIterating(1, 50, 0);
+            long now = steady.getSoftMillis() * 6 / 10 * MILLIS;
+            assertTrue(steady.shouldStopIterating(1, 50, now));
+            assertTrue(!falling.shouldStopIterating(1, -50, now));
+        }
+
+        @Test
+        void testSearchStaysWithinHardLimit() {
+            SearchLimits limits = SearchLimits.clock(2_000, 0, 0);
+            long hard = new TimeManager(limits, 1).getHardMillis();
+            SearchResult result = search(KIWIPETE, limits);
+            assertTrue(result.getBestMove() != Move.NONE);
+            assertTrue(result.getTimeMillis() <= hard + 50, result.getTimeMillis() + " ms");
+        }
+    }
+}
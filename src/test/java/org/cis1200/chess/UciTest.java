@@ -0,0 +1,85 @@
+package org.cis1200.chess;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import org.cis1200.uci.UciEngine;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class UciTest {
+    /**
+     * Feeds commands to an engine and collects its replies, one per line.
+     */
+    private List<String> run(String... commands) {
+        String input = String.join("\n", commands) + "\n";
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new UciEngine(
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output
+        ).run();
+        return output.toString(StandardCharsets.UTF_8).lines().toList();
+    }
+
+    @Test
+    void testHandshake() {
+        List<String> replies = run("uci", "isready", "quit");
+        assertTrue(replies.get(0).startsWith("id name "));
+        assertTrue(replies.contains("option name Hash type spin default 16 min 1 max 4096"));
+        assertTrue(replies.contains("uciok"));
+        assertEquals("readyok", replies.get(replies.size() - 1));
+    }
+
+    @Test
+    void testSearchReportsInfoAndBestMove() {
+        List<String> replies = run(
+                "setoption name Hash value 8", "setoption name Threads value 2", "ucinewgame",
+                "position fen 6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1", "go depth 3", "isready"
+        );
+        assertTrue(replies.stream().anyMatch(line -> line.startsWith("info depth 1 score ")));
+        assertTrue(replies.contains("bestmove a1a8"), replies.toString());
+        assertTrue(replies.stream().anyMatch(line -> line.contains("score mate 1 nodes ")));
+    }
+
+    @Test
+    void testMovesAreAppliedBeforeSearching() {
+        // after 1. f3 e5 2. g4, black mates with Qh4
+        List<String> replies = run("position startpos moves f2f3 e7e5 g2g4", "go depth 2", "isready");
+        assertTrue(replies.contains("bestmove d8h4"), replies.toString());
+    }
+
+    @Test
+    void testStopEndsInfiniteSearch() {
+        List<String> replies = run("position startpos", "go infinite", "stop", "quit");
+        assertTrue(replies.get(replies.size() - 1).startsWith("bestmove "), replies.toString());
+    }
+
+    @Test
+    void testUnlimitedGoIsStoppedAtEndOfInput() {
+        // neither search has a limit for the side to move, so both run until
+        // stopped rather than blocking the engine forever
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            List<String> replies = run("position startpos", "go");
+            assertTrue(replies.get(replies.size() - 1).startsWith("bestmove "), replies.toString());
+            replies = run("position startpos moves e2e4", "go wtime 1000", "isready");
+            assertTrue(replies.contains("readyok"), replies.toString());
+            assertTrue(replies.get(replies.size() - 1).startsWith("bestmove "), replies.toString());
+        });
+    }
+
+    @Test
+    void testBadInputIsReported() {
+        List<String> replies = run(
+                "position startpos moves e2e5", "go depth x", "setoption name Ponder value true",
+                "hello", "go wtime 1000 movestogo", "quit"
+        );
+        assertEquals(5, replies.size(), replies.toString());
+        for (String reply : replies) {
+            assertTrue(reply.startsWith("info string "), reply);
+        }
+    }
+}